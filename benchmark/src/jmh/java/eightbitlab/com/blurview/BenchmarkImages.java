@@ -0,0 +1,30 @@
+package eightbitlab.com.blurview;
+
+import java.util.Random;
+
+final class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * @param size view size in "WIDTHxHEIGHT" format
+     * @return width and height of the view
+     */
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /**
+     * Opaque noise, so the blur can't take any shortcuts on uniform areas
+     */
+    static int[] noise(int width, int height) {
+        Random random = new Random(42);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,78 @@
+package eightbitlab.com.blurview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the CPU blur kernels on the same buffers with the same radius:
+ * the stack blur approximation, the true separable Gaussian and the dual Kawase pyramid.
+ * Radii up to 25 match what RenderScript allows, larger ones are where the cost difference shows.
+ */
+@State(Scope.Thread)
+public class CpuBlurComparisonBenchmark {
+
+    @Param({"stack", "gaussian", "kawase"})
+    public String kernel;
+
+    @Param({"1080x1080", "1080x2340"})
+    public String viewSize;
+
+    @Param({"4", "16", "25", "64"})
+    public int radius;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    // BlurController.DEFAULT_SCALE_FACTOR, the controller isn't available outside of Android
+    private static final float SCALE_FACTOR = 6f;
+
+    private BandExecutor executor;
+    private StackBlurKernel stackBlur;
+    private GaussianKernel gaussian;
+    private DualKawaseKernel kawase;
+    private int[] source;
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] view = BenchmarkImages.parseSize(viewSize);
+        SizeScaler.Size size = new SizeScaler(SCALE_FACTOR).scale(view[0], view[1]);
+        width = size.width;
+        height = size.height;
+        source = BenchmarkImages.noise(width, height);
+        pixels = new int[source.length];
+        executor = new BandExecutor(threads);
+        stackBlur = new StackBlurKernel(executor);
+        gaussian = new GaussianKernel(executor);
+        kawase = new DualKawaseKernel(executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int[] blur() {
+        System.arraycopy(source, 0, pixels, 0, source.length);
+        switch (kernel) {
+            case "stack":
+                stackBlur.blur(pixels, width, height, radius);
+                break;
+            case "gaussian":
+                gaussian.blur(pixels, width, height, radius);
+                break;
+            default:
+                kawase.blur(pixels, width, height, radius);
+                break;
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,46 @@
+package eightbitlab.com.blurview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of computing the downscaled bitmap size, which happens on every BlurView size change.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SizeScalerBenchmark {
+
+    @Param({"1080x200", "1080x1080", "1080x2340"})
+    public String viewSize;
+
+    @Param({"4", "6", "8"})
+    public float scaleFactor;
+
+    private SizeScaler scaler;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp() {
+        int[] view = BenchmarkImages.parseSize(viewSize);
+        width = view[0];
+        height = view[1];
+        scaler = new SizeScaler(scaleFactor);
+    }
+
+    @Benchmark
+    public SizeScaler.Size scale() {
+        return scaler.scale(width, height);
+    }
+
+    @Benchmark
+    public boolean isZeroSized() {
+        return scaler.isZeroSized(width, height);
+    }
+}
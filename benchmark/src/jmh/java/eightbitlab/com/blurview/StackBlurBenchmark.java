@@ -0,0 +1,60 @@
+package eightbitlab.com.blurview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Per-frame cost of {@link StackBlur}: copying the downscaled snapshot into the pixel buffer and blurring it.
+ * The buffer size is derived from the view size and scale factor the same way the controller does it.
+ */
+@State(Scope.Thread)
+public class StackBlurBenchmark {
+
+    @Param({"1080x200", "1080x1080", "1080x2340"})
+    public String viewSize;
+
+    @Param({"4", "6", "8"})
+    public float scaleFactor;
+
+    @Param({"4", "16", "25"})
+    public int radius;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BandExecutor executor;
+    private StackBlurKernel kernel;
+    private int[] source;
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] view = BenchmarkImages.parseSize(viewSize);
+        SizeScaler.Size size = new SizeScaler(scaleFactor).scale(view[0], view[1]);
+        width = size.width;
+        height = size.height;
+        source = BenchmarkImages.noise(width, height);
+        pixels = new int[source.length];
+        executor = new BandExecutor(threads);
+        kernel = new StackBlurKernel(executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int[] blur() {
+        System.arraycopy(source, 0, pixels, 0, source.length);
+        kernel.blur(pixels, width, height, radius);
+        return pixels;
+    }
+}
@@ -0,0 +1,179 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fixed-size pool of worker threads that splits a range of rows or columns into bands
+ * and processes them in parallel. The calling thread always processes the first band itself
+ * and returns only when every band is done.
+ * <p>
+ * Unlike an ExecutorService it doesn't create Futures or queue nodes,
+ * so dispatching work doesn't allocate anything.
+ * <p>
+ * One executor can be shared by several blurs running on different threads, their calls are processed one at a time.
+ */
+final class BandExecutor {
+
+    interface Task {
+        /**
+         * @param band index of the band, in [0, {@link #getBandCount()})
+         * @param from first index of the band, inclusive
+         * @param to   last index of the band, exclusive
+         */
+        void run(int band, int from, int to);
+    }
+
+    private final Object lock = new Object();
+    // Held by the thread that dispatches the current task, so concurrent callers wait for their turn
+    private final Object dispatchLock = new Object();
+    private final Thread[] workers;
+
+    private Task task;
+    private int count;
+    private int generation;
+    private int pending;
+    private boolean shutdown;
+    private RuntimeException failure;
+
+    /**
+     * @param threadCount total amount of threads processing the bands, including the calling thread
+     */
+    BandExecutor(int threadCount) {
+        workers = new Thread[Math.max(1, threadCount) - 1];
+        for (int i = 0; i < workers.length; i++) {
+            final int band = i + 1;
+            Thread worker = new Thread("BlurView-band-" + band) {
+                @Override
+                public void run() {
+                    loop(band);
+                }
+            };
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    static int defaultThreadCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    int getBandCount() {
+        return workers.length + 1;
+    }
+
+    /**
+     * Runs the task over [0, count) and blocks until all bands are processed.
+     * If another thread is executing a task, waits until it's done first.
+     */
+    void execute(@NonNull Task task, int count) {
+        if (workers.length == 0 || count < getBandCount()) {
+            task.run(0, 0, count);
+            return;
+        }
+        synchronized (dispatchLock) {
+            dispatch(task, count);
+        }
+    }
+
+    private void dispatch(@NonNull Task task, int count) {
+        synchronized (lock) {
+            if (shutdown) {
+                throw new IllegalStateException("BandExecutor is shut down");
+            }
+            this.task = task;
+            this.count = count;
+            pending = workers.length;
+            failure = null;
+            generation++;
+            lock.notifyAll();
+        }
+
+        RuntimeException callerFailure = null;
+        try {
+            task.run(0, 0, bandEnd(0, count));
+        } catch (RuntimeException e) {
+            callerFailure = e;
+        }
+
+        RuntimeException workerFailure;
+        synchronized (lock) {
+            // Scratch buffers are shared with the workers, so we can't leave before they are done
+            boolean interrupted = false;
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            this.task = null;
+            workerFailure = failure;
+            failure = null;
+        }
+        if (callerFailure != null) {
+            throw callerFailure;
+        }
+        if (workerFailure != null) {
+            throw workerFailure;
+        }
+    }
+
+    /**
+     * Stops the worker threads. The executor can't be used afterwards.
+     */
+    void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    private int bandEnd(int band, int count) {
+        return (int) ((long) count * (band + 1) / getBandCount());
+    }
+
+    private void loop(int band) {
+        int seenGeneration = 0;
+        while (true) {
+            Task currentTask;
+            int currentCount;
+            synchronized (lock) {
+                while (!shutdown && generation == seenGeneration) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignored) {
+                        // Workers are stopped only through shutdown()
+                    }
+                }
+                if (generation == seenGeneration) {
+                    // Shut down, and there is no pending work left for this band
+                    return;
+                }
+                seenGeneration = generation;
+                currentTask = task;
+                currentCount = count;
+            }
+
+            RuntimeException error = null;
+            try {
+                currentTask.run(band, bandEnd(band - 1, currentCount), bandEnd(band, currentCount));
+            } catch (RuntimeException e) {
+                error = e;
+            }
+
+            synchronized (lock) {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                pending--;
+                if (pending == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -13,11 +13,31 @@ public interface BlurAlgorithm {
      */
     Bitmap blur(@NonNull Bitmap bitmap, @NonNull float blurRadius);
 
+    /**
+     * Blurs only the top left part of the bitmap. The BlurView keeps its buffers while it's resized,
+     * while the new size fits into them, and only their top left part holds the captured content.
+     * The rest of the bitmap may be left as is. Blurs the whole bitmap by default.
+     *
+     * @param width  size of the part to blur, at most the size of the bitmap
+     * @return blurred bitmap, the same as {@link #blur(Bitmap, float)} would return
+     */
+    default Bitmap blurRegion(@NonNull Bitmap bitmap, float blurRadius, int width, int height) {
+        return blur(bitmap, blurRadius);
+    }
+
     /**
      * Frees allocated resources
      */
     void destroy();
 
+    /**
+     * Frees the resources that can be recreated by the next {@link #blur(Bitmap, float)} call,
+     * like scratch buffers or native contexts. Called when no blur is expected for a while,
+     * for example after {@link BlurViewFacade#captureOnce()}. Does nothing by default.
+     */
+    default void releaseResources() {
+    }
+
     /**
      * @return true if this algorithm returns the same instance of bitmap as it accepted
      * false if it creates a new instance.
@@ -37,6 +57,12 @@ public interface BlurAlgorithm {
     @NonNull
     Bitmap.Config getSupportedBitmapConfig();
 
+    /**
+     * @return downscale factor used with the default blur radius.
+     * The actual factor is picked from the blur radius, relative to this one, see {@link SizeScaler#scaleFactorFor}.
+     * The radius passed to {@link #blur(Bitmap, float)} is adjusted accordingly,
+     * so the on-screen blur radius stays the same.
+     */
     float scaleFactor();
 
     void render(@NonNull Canvas canvas, @NonNull Bitmap bitmap);
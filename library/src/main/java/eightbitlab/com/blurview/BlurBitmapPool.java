@@ -0,0 +1,182 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * Process-wide pool of the bitmaps used by BlurViews, so screens with several BlurViews
+ * or BlurViews with animated size don't allocate a new bitmap on every size change.
+ * <p>
+ * Bitmaps are grouped in buckets by size, rounded up to the same 64 px grid that {@link SizeScaler} uses for the width.
+ * On API 19+ a bitmap is allocated for the whole bucket and reconfigured to the requested size,
+ * so any request from the same bucket can reuse it. On API 18 only exact sizes are reused.
+ * <p>
+ * Idle bitmaps are kept until their total size exceeds {@link #getMaxBytes()},
+ * then the least recently released ones are recycled.
+ */
+public final class BlurBitmapPool {
+
+    private static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final BlurBitmapPool INSTANCE = new BlurBitmapPool(DEFAULT_MAX_BYTES);
+
+    // Least recently released first
+    private final ArrayList<Bitmap> idle = new ArrayList<>();
+    private final boolean canReconfigure = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    private long maxBytes;
+    private long idleBytes;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    BlurBitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @NonNull
+    public static BlurBitmapPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxBytes maximum total size of the idle bitmaps kept in the pool. 0 disables pooling.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimTo(maxBytes);
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return total size of the idle bitmaps currently kept in the pool
+     */
+    public synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+
+    /**
+     * @return amount of requests served by a pooled bitmap
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return amount of requests that needed a new bitmap
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return amount of idle bitmaps recycled to stay within the size limit
+     */
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Recycles all idle bitmaps
+     */
+    public synchronized void clear() {
+        trimTo(0);
+    }
+
+    /**
+     * @param metrics is notified if a new bitmap has to be allocated
+     * @return a mutable bitmap of the exact requested size, with undefined content
+     */
+    @NonNull
+    synchronized Bitmap acquire(int width, int height, @NonNull Bitmap.Config config, @Nullable BlurMetrics metrics) {
+        for (int i = idle.size() - 1; i >= 0; i--) {
+            Bitmap bitmap = idle.get(i);
+            if (bitmap.getConfig() == config && fits(bitmap, width, height)) {
+                idle.remove(i);
+                idleBytes -= sizeOf(bitmap);
+                hitCount++;
+                if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+                    // noinspection NewApi
+                    bitmap.reconfigure(width, height, config);
+                }
+                return bitmap;
+            }
+        }
+
+        missCount++;
+        int allocatedWidth = canReconfigure ? bucket(width) : width;
+        int allocatedHeight = canReconfigure ? bucket(height) : height;
+        Bitmap bitmap = Bitmap.createBitmap(allocatedWidth, allocatedHeight, config);
+        if (metrics != null) {
+            metrics.onBitmapAllocated(width, height, sizeOf(bitmap));
+        }
+        if (allocatedWidth != width || allocatedHeight != height) {
+            // noinspection NewApi
+            bitmap.reconfigure(width, height, config);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns the bitmap to the pool. The caller must not use it afterwards.
+     */
+    synchronized void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = sizeOf(bitmap);
+        if (size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        idle.add(bitmap);
+        idleBytes += size;
+        trimTo(maxBytes);
+    }
+
+    private boolean fits(Bitmap bitmap, int width, int height) {
+        if (canReconfigure) {
+            // Bitmaps are allocated for the whole bucket, see acquire()
+            return bucket(bitmap.getWidth()) == bucket(width)
+                    && bucket(bitmap.getHeight()) == bucket(height)
+                    && sizeOf(bitmap) >= (long) width * height * bytesPerPixel(bitmap.getConfig());
+        }
+        return bitmap.getWidth() == width && bitmap.getHeight() == height;
+    }
+
+    private void trimTo(long bytes) {
+        while (idleBytes > bytes && !idle.isEmpty()) {
+            Bitmap bitmap = idle.remove(0);
+            idleBytes -= sizeOf(bitmap);
+            evictionCount++;
+            bitmap.recycle();
+        }
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    private static int bucket(int size) {
+        return SizeScaler.roundSize(Math.max(size, 1));
+    }
+
+    private int sizeOf(Bitmap bitmap) {
+        // noinspection NewApi
+        return canReconfigure ? bitmap.getAllocationByteCount() : bitmap.getByteCount();
+    }
+}
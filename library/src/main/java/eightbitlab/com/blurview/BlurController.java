@@ -19,6 +19,13 @@ public interface BlurController extends BlurViewFacade {
      */
     void updateBlurViewSize();
 
+    /**
+     * Called when the window of the BlurView is hidden or shown again, for example when the Activity is stopped.
+     * Nothing is captured or blurred while paused, and the memory may be released on
+     * {@link android.content.ComponentCallbacks2#onTrimMemory}, see {@link BlurMemoryTrimmer}.
+     */
+    void setPaused(boolean paused);
+
     /**
      * Frees allocated resources
      */
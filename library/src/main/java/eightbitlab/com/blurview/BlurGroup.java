@@ -0,0 +1,219 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * Shares one snapshot of the root between several BlurViews.
+ * <p>
+ * With a regular setup every BlurView draws the whole root hierarchy and blurs it on its own,
+ * so the cost grows with the number of BlurViews. A group draws the root once per frame
+ * at the downscaled resolution, blurs it once, and every BlurView renders its own part of the result.
+ * <p>
+ * Works best when the BlurViews together cover a good part of the root, for example a toolbar and a bottom bar.
+ * Blur radius, algorithm and frame clear drawable are shared by all the BlurViews in the group.
+ * <p>
+ * Usage: {@code blurView.setupWith(blurGroup)} for every BlurView of the group.
+ */
+public final class BlurGroup {
+
+    private final View rootView;
+    private final BlurAlgorithm blurAlgorithm;
+    private final BlurMetrics metrics = new BlurMetrics();
+    private final BlurBitmapPool bitmapPool = BlurBitmapPool.getInstance();
+    private final ArrayList<GroupBlurController> members = new ArrayList<>();
+
+    private float blurRadius = BlurController.DEFAULT_BLUR_RADIUS;
+    private float scaleFactor;
+    private boolean scaleFactorChanged;
+    @Nullable
+    private Drawable frameClearDrawable;
+
+    private Bitmap internalBitmap;
+    private BlurViewCanvas internalCanvas;
+    private int rootWidth;
+    private int rootHeight;
+    private boolean listening;
+    private boolean destroyed;
+
+    private final ViewTreeObserver.OnPreDrawListener drawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            updateBlur();
+            return true;
+        }
+    };
+
+    /**
+     * @param rootView  root to start blur from, shared by all the BlurViews of the group
+     * @param algorithm blur algorithm, shared by all the BlurViews of the group
+     */
+    public BlurGroup(@NonNull View rootView, @NonNull BlurAlgorithm algorithm) {
+        this.rootView = rootView;
+        this.blurAlgorithm = algorithm;
+        if (algorithm instanceof RenderEffectBlur) {
+            // noinspection NewApi
+            ((RenderEffectBlur) algorithm).setContext(rootView.getContext());
+        }
+        this.scaleFactor = SizeScaler.scaleFactorFor(blurRadius, algorithm.scaleFactor());
+    }
+
+    /**
+     * @param radius blur radius for all the BlurViews of the group
+     */
+    public BlurGroup setBlurRadius(float radius) {
+        this.blurRadius = radius;
+        float newScaleFactor = SizeScaler.scaleFactorFor(radius, blurAlgorithm.scaleFactor());
+        if (newScaleFactor != scaleFactor) {
+            scaleFactor = newScaleFactor;
+            // Reallocated on the next update
+            scaleFactorChanged = true;
+        }
+        return this;
+    }
+
+    /**
+     * @see BlurViewFacade#setFrameClearDrawable(Drawable)
+     */
+    public BlurGroup setFrameClearDrawable(@Nullable Drawable frameClearDrawable) {
+        this.frameClearDrawable = frameClearDrawable;
+        return this;
+    }
+
+    /**
+     * @see BlurViewFacade#setBlurMetricsListener(BlurMetricsListener)
+     */
+    public BlurGroup setBlurMetricsListener(@Nullable BlurMetricsListener listener) {
+        metrics.setListener(listener);
+        return this;
+    }
+
+    /**
+     * Frees allocated resources. The BlurViews of the group stop drawing the blur.
+     */
+    public void destroy() {
+        destroyed = true;
+        members.clear();
+        updateListener();
+        blurAlgorithm.destroy();
+        bitmapPool.release(internalBitmap);
+        internalBitmap = null;
+        internalCanvas = null;
+    }
+
+    void addMember(@NonNull GroupBlurController member) {
+        if (!destroyed && !members.contains(member)) {
+            members.add(member);
+        }
+        updateListener();
+    }
+
+    void removeMember(@NonNull GroupBlurController member) {
+        members.remove(member);
+        updateListener();
+    }
+
+    /**
+     * Called when a member starts or stops needing updates
+     */
+    void updateListener() {
+        boolean shouldListen = false;
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i).isActive()) {
+                shouldListen = true;
+                break;
+            }
+        }
+        if (shouldListen == listening) {
+            return;
+        }
+        listening = shouldListen;
+        rootView.getViewTreeObserver().removeOnPreDrawListener(drawListener);
+        if (shouldListen) {
+            rootView.getViewTreeObserver().addOnPreDrawListener(drawListener);
+        }
+    }
+
+    boolean isReady() {
+        return internalBitmap != null;
+    }
+
+    View getRootView() {
+        return rootView;
+    }
+
+    /**
+     * Renders the blurred root on the canvas, in root coordinates scaled back to the full size
+     */
+    void render(@NonNull Canvas canvas) {
+        float scaleFactorW = (float) rootWidth / internalBitmap.getWidth();
+        float scaleFactorH = (float) rootHeight / internalBitmap.getHeight();
+        canvas.scale(scaleFactorW, scaleFactorH);
+        blurAlgorithm.render(canvas, internalBitmap);
+    }
+
+    void updateBlur() {
+        if (destroyed || !ensureBitmap()) {
+            return;
+        }
+        for (int i = 0; i < members.size(); i++) {
+            // Members draw their part of the shared bitmap with an offset baked into their display list,
+            // so they have to be redrawn when they move relative to the root
+            members.get(i).invalidateIfMoved();
+        }
+
+        long captureStart = metrics.now();
+        if (frameClearDrawable == null) {
+            internalBitmap.eraseColor(Color.TRANSPARENT);
+        } else {
+            frameClearDrawable.draw(internalCanvas);
+        }
+        internalCanvas.save();
+        internalCanvas.scale((float) internalBitmap.getWidth() / rootWidth, (float) internalBitmap.getHeight() / rootHeight);
+        rootView.draw(internalCanvas);
+        internalCanvas.restore();
+
+        long blurStart = metrics.now();
+        internalBitmap = blurAlgorithm.blur(internalBitmap, SizeScaler.scaleRadius(blurRadius, blurAlgorithm.scaleFactor(), scaleFactor));
+        if (!blurAlgorithm.canModifyBitmap()) {
+            internalCanvas.setBitmap(internalBitmap);
+        }
+        metrics.onBlurUpdated(captureStart, blurStart);
+    }
+
+    /**
+     * (Re)allocates the shared bitmap when the root size changes
+     *
+     * @return false if the root has no size yet
+     */
+    private boolean ensureBitmap() {
+        int width = rootView.getWidth();
+        int height = rootView.getHeight();
+        if (internalBitmap != null && !scaleFactorChanged && width == rootWidth && height == rootHeight) {
+            return true;
+        }
+        SizeScaler sizeScaler = new SizeScaler(scaleFactor);
+        if (sizeScaler.isZeroSized(width, height)) {
+            return false;
+        }
+        SizeScaler.Size size = sizeScaler.scale(width, height);
+        if (blurAlgorithm.canModifyBitmap()) {
+            bitmapPool.release(internalBitmap);
+        }
+        internalBitmap = bitmapPool.acquire(size.width, size.height, blurAlgorithm.getSupportedBitmapConfig(), metrics);
+        internalCanvas = new BlurViewCanvas(internalBitmap);
+        rootWidth = width;
+        rootHeight = height;
+        scaleFactorChanged = false;
+        return true;
+    }
+}
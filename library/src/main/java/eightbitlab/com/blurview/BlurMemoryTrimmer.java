@@ -0,0 +1,115 @@
+package eightbitlab.com.blurview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Releases the memory held by BlurViews when the system asks for it with {@link ComponentCallbacks2#onTrimMemory}.
+ * <p>
+ * BlurViews whose window is hidden release their bitmaps, their algorithm resources and the PixelCopy thread,
+ * and rebuild them when they are shown again. The {@link BlurBitmapPool} and the {@link BlurResultCache}
+ * are cleared too. Visible BlurViews are left alone, they would reallocate everything on the next frame anyway.
+ * <p>
+ * Registers itself on the application context with the first BlurView, all callbacks happen on the main thread.
+ */
+public final class BlurMemoryTrimmer {
+
+    private static final BlurMemoryTrimmer INSTANCE = new BlurMemoryTrimmer();
+
+    /**
+     * Releases the memory held by one controller
+     */
+    interface Client {
+        /**
+         * @return amount of released bytes that don't go back to the {@link BlurBitmapPool},
+         * which is cleared afterwards and counted separately
+         */
+        long trimMemory();
+    }
+
+    // Weak, so a BlurView that was never destroyed can still be collected
+    private final Set<Client> clients = Collections.newSetFromMap(new WeakHashMap<Client, Boolean>());
+    private boolean registered;
+    private int trimCount;
+    private long freedBytes;
+
+    private final ComponentCallbacks2 callbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            // RUNNING_MODERATE is only a hint, and there's nothing to do for a running app yet
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                trim();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            trim();
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+    };
+
+    private BlurMemoryTrimmer() {
+    }
+
+    @NonNull
+    public static BlurMemoryTrimmer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return amount of times the memory was trimmed
+     */
+    public int getTrimCount() {
+        return trimCount;
+    }
+
+    /**
+     * @return total amount of bytes freed by all the trims. Native memory of the algorithms,
+     * like RenderScript contexts, isn't included, its size is unknown.
+     */
+    public long getFreedBytes() {
+        return freedBytes;
+    }
+
+    void register(@NonNull Context context, @NonNull Client client) {
+        if (!registered) {
+            context.getApplicationContext().registerComponentCallbacks(callbacks);
+            registered = true;
+        }
+        clients.add(client);
+    }
+
+    void unregister(@NonNull Client client) {
+        clients.remove(client);
+    }
+
+    private void trim() {
+        long freed = 0;
+        // Clients may unregister while trimming
+        for (Client client : new ArrayList<>(clients)) {
+            freed += client.trimMemory();
+        }
+        // Released bitmaps are in the pool now, so they are counted and recycled here
+        BlurBitmapPool pool = BlurBitmapPool.getInstance();
+        freed += pool.getIdleBytes();
+        pool.clear();
+        BlurResultCache resultCache = BlurResultCache.getInstance();
+        freed += resultCache.getSizeBytes();
+        resultCache.clear();
+
+        trimCount++;
+        freedBytes += freed;
+    }
+}
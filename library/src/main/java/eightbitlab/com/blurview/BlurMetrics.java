@@ -0,0 +1,75 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Forwards measurements to the {@link BlurMetricsListener}, if there is any.
+ * Without a listener, timestamps aren't even taken.
+ */
+final class BlurMetrics {
+
+    @Nullable
+    private BlurMetricsListener listener;
+
+    void setListener(@Nullable BlurMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * @return current {@link System#nanoTime()}, or 0 if there's no listener
+     */
+    long now() {
+        return listener != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param captureStart value of {@link #now()} before the capture started
+     * @param blurStart    value of {@link #now()} before the blur started
+     */
+    void onBlurUpdated(long captureStart, long blurStart) {
+        BlurMetricsListener listener = this.listener;
+        // Zero start means the listener was set in the middle of the update
+        if (listener != null && captureStart != 0) {
+            long end = System.nanoTime();
+            listener.onBlurUpdated(blurStart - captureStart, end - blurStart);
+        }
+    }
+
+    /**
+     * For updates measured elsewhere, for example on a worker thread
+     */
+    void onBlurUpdatedWithDurations(long captureNanos, long blurNanos) {
+        BlurMetricsListener listener = this.listener;
+        if (listener != null) {
+            listener.onBlurUpdated(captureNanos, blurNanos);
+        }
+    }
+
+    /**
+     * @param requestStart value of {@link #now()} before the PixelCopy request
+     */
+    void onPixelCopyFinished(long requestStart, int copyResult) {
+        BlurMetricsListener listener = this.listener;
+        if (listener != null && requestStart != 0) {
+            listener.onPixelCopyFinished(System.nanoTime() - requestStart, copyResult);
+        }
+    }
+
+    void onUpdateSkipped(int reason) {
+        BlurMetricsListener listener = this.listener;
+        if (listener != null) {
+            listener.onUpdateSkipped(reason);
+        }
+    }
+
+    void onBitmapAllocated(int width, int height, int byteCount) {
+        BlurMetricsListener listener = this.listener;
+        if (listener != null) {
+            listener.onBitmapAllocated(width, height, byteCount);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package eightbitlab.com.blurview;
+
+/**
+ * Receives timings and counters of the blur pipeline.
+ * All durations are measured with {@link System#nanoTime()}.
+ * <p>
+ * Callbacks are invoked on the main thread, in the middle of the frame,
+ * so implementations should only record the values and return quickly.
+ * Nothing is measured while no listener is set.
+ */
+public interface BlurMetricsListener {
+
+    /**
+     * The update was skipped, because another update is already scheduled and will cover it
+     */
+    int SKIP_COALESCED = 0;
+    /**
+     * The update was skipped, because the captured content is the same as in the last blurred frame
+     */
+    int SKIP_UNCHANGED = 1;
+    /**
+     * The update was postponed until the asynchronous blur in flight is finished
+     */
+    int SKIP_BLUR_IN_FLIGHT = 2;
+    /**
+     * The update was skipped, because the previous PixelCopy request hasn't finished yet
+     */
+    int SKIP_CAPTURE_IN_FLIGHT = 3;
+    /**
+     * The blur was skipped, because the captured content was blurred before and was found in the {@link BlurResultCache}
+     */
+    int SKIP_CACHED = 4;
+    /**
+     * The update was skipped, because the BlurView is not visible, transparent, off screen or covered by an opaque View
+     */
+    int SKIP_NOT_VISIBLE = 5;
+
+    /**
+     * Called after each blur update
+     *
+     * @param captureNanos time spent taking the snapshot of the underlying content
+     * @param blurNanos    time spent in {@link BlurAlgorithm#blur}
+     */
+    void onBlurUpdated(long captureNanos, long blurNanos);
+
+    /**
+     * Called when a PixelCopy request of a SurfaceView finishes
+     *
+     * @param latencyNanos time between the request and the result
+     * @param copyResult   PixelCopy result code, PixelCopy.SUCCESS if the copy succeeded
+     */
+    void onPixelCopyFinished(long latencyNanos, int copyResult);
+
+    /**
+     * Called when a requested update didn't happen
+     *
+     * @param reason one of SKIP_* constants
+     */
+    void onUpdateSkipped(int reason);
+
+    /**
+     * Called when a new bitmap is allocated by the blur pipeline
+     *
+     * @param width     bitmap width
+     * @param height    bitmap height
+     * @param byteCount bitmap size in bytes
+     */
+    void onBitmapAllocated(int width, int height, int byteCount);
+}
@@ -0,0 +1,183 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide LRU cache of blurred frames, so the same static content under a BlurView isn't blurred again,
+ * for example when a screen or a dialog with a BlurView is opened again.
+ * <p>
+ * Frames are identified by the {@link ContentSignature} of the captured pixels, their size,
+ * the blur radius and the algorithm with its bitmap config.
+ * It's used by BlurViews with content change detection enabled, which compute the signature anyway.
+ * A frame is stored only after it has been captured unchanged at least twice,
+ * so animated content doesn't push static frames out of the cache.
+ * <p>
+ * Entries are kept until their total size exceeds {@link #getMaxBytes()},
+ * then the least recently used ones are dropped.
+ */
+public final class BlurResultCache {
+
+    private static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    private static final BlurResultCache INSTANCE = new BlurResultCache(DEFAULT_MAX_BYTES);
+
+    // Least recently used first
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Reused for lookups, so a cache miss doesn't allocate
+    private final Key lookupKey = new Key();
+    private long maxBytes;
+    private long sizeBytes;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    BlurResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @NonNull
+    public static BlurResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxBytes maximum total size of the cached frames. 0 disables caching.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimTo(maxBytes);
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return total size of the cached frames
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * @return amount of lookups that found a blurred frame
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return amount of lookups that didn't find a blurred frame
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return amount of frames dropped to stay within the size limit
+     */
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Drops all cached frames
+     */
+    public synchronized void clear() {
+        trimTo(0);
+    }
+
+    /**
+     * @param algorithm identifies the blur algorithm and its bitmap config, compared with equals()
+     * @return blurred pixels, row by row, or null if there are none. Must not be modified.
+     */
+    @Nullable
+    synchronized int[] get(long signature, int width, int height, float radius, @NonNull Object algorithm) {
+        int[] pixels = entries.get(lookupKey.set(signature, width, height, radius, algorithm));
+        lookupKey.algorithm = null;
+        if (pixels == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return pixels;
+    }
+
+    /**
+     * @param pixels blurred pixels, row by row. The cache takes ownership of the array.
+     */
+    synchronized void put(long signature, int width, int height, float radius, @NonNull Object algorithm,
+                          @NonNull int[] pixels) {
+        long size = sizeOf(pixels);
+        if (size > maxBytes) {
+            return;
+        }
+        Key key = new Key().set(signature, width, height, radius, algorithm);
+        int[] previous = entries.put(key, pixels);
+        if (previous != null) {
+            sizeBytes -= sizeOf(previous);
+        }
+        sizeBytes += size;
+        trimTo(maxBytes);
+    }
+
+    private void trimTo(long bytes) {
+        Iterator<Map.Entry<Key, int[]>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > bytes && iterator.hasNext()) {
+            sizeBytes -= sizeOf(iterator.next().getValue());
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private static long sizeOf(int[] pixels) {
+        return 4L * pixels.length;
+    }
+
+    private static final class Key {
+        long signature;
+        int width;
+        int height;
+        float radius;
+        Object algorithm;
+
+        Key set(long signature, int width, int height, float radius, Object algorithm) {
+            this.signature = signature;
+            this.width = width;
+            this.height = height;
+            this.radius = radius;
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return signature == key.signature
+                    && width == key.width
+                    && height == key.height
+                    && Float.compare(radius, key.radius) == 0
+                    && algorithm.equals(key.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (signature ^ (signature >>> 32));
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(radius);
+            result = 31 * result + algorithm.hashCode();
+            return result;
+        }
+    }
+}
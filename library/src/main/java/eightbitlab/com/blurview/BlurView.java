@@ -14,6 +14,7 @@ import android.widget.FrameLayout;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 /**
@@ -64,6 +65,12 @@ public class BlurView extends FrameLayout {
         blurController.updateBlurViewSize();
     }
 
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        blurController.setPaused(visibility != VISIBLE);
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
@@ -109,6 +116,20 @@ public class BlurView extends FrameLayout {
         return setupWith(rootView, getBlurAlgorithm());
     }
 
+    /**
+     * @param group group sharing one blurred snapshot of the root between several BlurViews.
+     *              Blur radius, algorithm and frame clear drawable are set on the group.
+     * @return {@link BlurView} to setup needed params.
+     * @see BlurGroup
+     */
+    public BlurViewFacade setupWith(@NonNull BlurGroup group) {
+        this.blurController.destroy();
+        BlurController blurController = new GroupBlurController(this, group, overlayColor);
+        this.blurController = blurController;
+
+        return blurController;
+    }
+
     // Setters duplicated to be able to conveniently change these settings outside of setupWith chain
 
     /**
@@ -140,6 +161,69 @@ public class BlurView extends FrameLayout {
         return blurController.setBlurEnabled(enabled);
     }
 
+    /**
+     * @see BlurViewFacade#setContentChangeDetection(boolean)
+     */
+    public BlurViewFacade setContentChangeDetection(boolean enabled) {
+        return blurController.setContentChangeDetection(enabled);
+    }
+
+    /**
+     * @see BlurViewFacade#setAsyncBlur(boolean)
+     */
+    public BlurViewFacade setAsyncBlur(boolean enabled) {
+        return blurController.setAsyncBlur(enabled);
+    }
+
+    /**
+     * @see BlurViewFacade#setUpdatePolicy(UpdatePolicy)
+     */
+    public BlurViewFacade setUpdatePolicy(@NonNull UpdatePolicy policy) {
+        return blurController.setUpdatePolicy(policy);
+    }
+
+    /**
+     * @see BlurViewFacade#captureOnce()
+     */
+    public BlurViewFacade captureOnce() {
+        return blurController.captureOnce();
+    }
+
+    /**
+     * @see BlurViewFacade#captureOnce(float)
+     */
+    public BlurViewFacade captureOnce(float scaleFactor) {
+        return blurController.captureOnce(scaleFactor);
+    }
+
+    /**
+     * @see BlurViewFacade#refresh()
+     */
+    public BlurViewFacade refresh() {
+        return blurController.refresh();
+    }
+
+    /**
+     * @see BlurViewFacade#setScrollingView(View)
+     */
+    public BlurViewFacade setScrollingView(@Nullable View scrollingView) {
+        return blurController.setScrollingView(scrollingView);
+    }
+
+    /**
+     * @see BlurViewFacade#setLowPrecision(boolean)
+     */
+    public BlurViewFacade setLowPrecision(boolean enabled) {
+        return blurController.setLowPrecision(enabled);
+    }
+
+    /**
+     * @see BlurViewFacade#setBlurMetricsListener(BlurMetricsListener)
+     */
+    public BlurViewFacade setBlurMetricsListener(@Nullable BlurMetricsListener listener) {
+        return blurController.setBlurMetricsListener(listener);
+    }
+
     @NonNull
     @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR1)
     private BlurAlgorithm getBlurAlgorithm() {
@@ -1,8 +1,10 @@
 package eightbitlab.com.blurview;
 
 import android.graphics.drawable.Drawable;
+import android.view.View;
 
 import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 public interface BlurViewFacade {
@@ -15,6 +17,39 @@ public interface BlurViewFacade {
      */
     BlurViewFacade setBlurEnabled(boolean enabled);
 
+    /**
+     * Takes one snapshot of the content and blurs it, then stops updating the blur.
+     * Everything except the blurred bitmap is released until the next snapshot,
+     * including the RenderScript context, so a BlurView over a frozen background, like a dialog,
+     * costs almost nothing after the first frame.
+     * <p>
+     * Async blur, content change detection and scroll caching are turned off,
+     * and {@link #setBlurAutoUpdate(boolean)} has no effect. {@link #refresh()} takes a new snapshot,
+     * and so does a change of the BlurView size or the blur radius.
+     * The mode lasts until the BlurView is set up again.
+     *
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade captureOnce();
+
+    /**
+     * Same as {@link #captureOnce()}, with a custom downscale factor for the snapshots.
+     * A lower factor gives a sharper result, which costs more only once.
+     *
+     * @param scaleFactor downscale factor, at least 1. It's raised if needed to keep the blur radius of the
+     *                    downscaled snapshot within 25 px. 0 uses the factor picked from the blur radius.
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade captureOnce(float scaleFactor);
+
+    /**
+     * Takes a new snapshot after {@link #captureOnce()}. Otherwise updates the blur right away,
+     * which is useful when auto update is disabled.
+     *
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade refresh();
+
     /**
      * Can be used to stop blur auto update or resume if it was stopped before.
      * Enabled by default.
@@ -45,4 +80,76 @@ public interface BlurViewFacade {
      * @return {@link BlurViewFacade}
      */
     BlurViewFacade setOverlayColor(@ColorInt int overlayColor);
+
+    /**
+     * Enables skipping the blur when the content under the BlurView hasn't changed since the last update.
+     * The snapshot is still taken, but it's compared with the previous one before blurring,
+     * which pays off on mostly static backgrounds with animated content on top.
+     * Static frames are also kept in the {@link BlurResultCache}, so the same content isn't blurred again
+     * when it's shown later, for example by the next BlurView over the same background.
+     * Disabled by default.
+     *
+     * @param enabled true to enable, false otherwise
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setContentChangeDetection(boolean enabled);
+
+    /**
+     * Moves {@link BlurAlgorithm#blur} to a background thread. The snapshot is still taken on the main thread,
+     * and the BlurView keeps drawing the previous blurred frame until the new one is ready,
+     * which adds a frame or two of latency.
+     * <p>
+     * Not supported by RenderEffectBlur, which already blurs on the RenderThread.
+     * Disabled by default.
+     *
+     * @param enabled true to enable, false otherwise
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setAsyncBlur(boolean enabled);
+
+    /**
+     * @param policy defines how often the blur may be updated.
+     *               By default it's {@link UpdatePolicy#everyFrame()},
+     *               or a fixed rate while the root contains a SurfaceView or a TextureView,
+     *               because their content has to be polled.
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setUpdatePolicy(@NonNull UpdatePolicy policy);
+
+    /**
+     * Enables scroll caching for content that scrolls vertically under the BlurView, like a ScrollView or a RecyclerView.
+     * A blurred strip taller than the BlurView is kept, and it's moved along with the scrolled content.
+     * Only the rows that scroll into the strip are captured and blurred, so scrolling costs a lot less than a full update.
+     * <p>
+     * Only the movement of the scrolling View is tracked. Other changes under the BlurView show up
+     * once the scroll stops, so it's meant for screens where the content under the BlurView is the scrolling View.
+     * Uses an extra bitmap for the strip. Not supported by RenderEffectBlur,
+     * and not used together with async blur, content change detection, or while the root contains a SurfaceView
+     * or a TextureView.
+     *
+     * @param scrollingView View whose children scroll under the BlurView, or null to disable scroll caching,
+     *                      which is the default
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setScrollingView(@Nullable View scrollingView);
+
+    /**
+     * Captures and blurs in RGB_565 instead of ARGB_8888, which halves the memory and copy cost of the bitmaps.
+     * The bitmap is converted to the screen format only when it's drawn.
+     * <p>
+     * Transparency is lost and blurred gradients may show some banding,
+     * so it's meant for opaque content under the BlurView.
+     * Supported by StackBlur, GaussianBlur, KawaseBlur and RenderEffectBlur. Disabled by default.
+     *
+     * @param enabled true to enable, false otherwise
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setLowPrecision(boolean enabled);
+
+    /**
+     * @param listener receives timings and counters of every blur update.
+     *                 Pass null to stop collecting them, which is the default.
+     * @return {@link BlurViewFacade}
+     */
+    BlurViewFacade setBlurMetricsListener(@Nullable BlurMetricsListener listener);
 }
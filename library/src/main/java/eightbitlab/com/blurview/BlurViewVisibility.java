@@ -0,0 +1,92 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tells whether any part of the BlurView can end up on the screen, so capturing and blurring can be skipped otherwise.
+ * <p>
+ * The BlurView is considered hidden when it or any of its parents is not visible or fully transparent,
+ * when it's clipped out or scrolled off screen, or when it's fully covered by an opaque View drawn after it.
+ * Only Views that report {@link View#isOpaque()} count as covering, so the check errs on the side of blurring.
+ * <p>
+ * The check runs on every update of every BlurView, so only the topmost siblings are checked for covering,
+ * up to {@link #MAX_COVER_CANDIDATES} in total. A View covering the whole BlurView is usually one of the last
+ * ones drawn, like a full screen fragment, and a list of BlurViews doesn't check all the items against each other.
+ */
+final class BlurViewVisibility {
+
+    private static final int MAX_COVER_CANDIDATES = 8;
+
+    private final View blurView;
+    private final Rect visibleRect = new Rect();
+    private final Rect siblingRect = new Rect();
+    // Siblings left to check in the current isVisible() call
+    private int coverCandidates;
+
+    BlurViewVisibility(@NonNull View blurView) {
+        this.blurView = blurView;
+    }
+
+    boolean isVisible() {
+        if (blurView.getWindowVisibility() != View.VISIBLE || !blurView.isShown()) {
+            return false;
+        }
+        if (!blurView.getGlobalVisibleRect(visibleRect)) {
+            return false;
+        }
+        View child = blurView;
+        ViewParent parent = blurView.getParent();
+        coverCandidates = MAX_COVER_CANDIDATES;
+        while (true) {
+            if (child.getAlpha() == 0f) {
+                return false;
+            }
+            if (!(parent instanceof ViewGroup)) {
+                return true;
+            }
+            ViewGroup group = (ViewGroup) parent;
+            if (isCovered(group, child)) {
+                return false;
+            }
+            child = group;
+            parent = group.getParent();
+        }
+    }
+
+    /**
+     * @return true if one of the topmost Views drawn after the child covers the visible part of the BlurView
+     */
+    private boolean isCovered(ViewGroup group, View child) {
+        // From the top, so indexOfChild() isn't needed
+        for (int i = group.getChildCount() - 1; i >= 0 && coverCandidates > 0; i--) {
+            View sibling = group.getChildAt(i);
+            if (sibling == child) {
+                return false;
+            }
+            coverCandidates--;
+            if (sibling.getVisibility() == View.VISIBLE
+                    && sibling.getAlpha() == 1f
+                    && sibling.isOpaque()
+                    && isDrawnAfter(sibling, child)
+                    && sibling.getGlobalVisibleRect(siblingRect)
+                    && siblingRect.contains(visibleRect)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Children with a higher Z are drawn later, regardless of their index
+     */
+    private static boolean isDrawnAfter(View sibling, View child) {
+        // noinspection NewApi
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || sibling.getZ() >= child.getZ();
+    }
+}
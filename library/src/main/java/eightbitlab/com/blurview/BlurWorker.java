@@ -0,0 +1,114 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Runs {@link BlurAlgorithm#blurRegion} on a dedicated thread and delivers the result back to the main thread.
+ * Only one blur can be in flight at a time, the caller is responsible for not touching the bitmap until it's delivered.
+ * <p>
+ * All methods must be called on the main thread.
+ */
+final class BlurWorker {
+
+    interface Callback {
+        /**
+         * Called on the main thread
+         *
+         * @param bitmap    blurred bitmap
+         * @param blurNanos time spent in {@link BlurAlgorithm#blurRegion}
+         */
+        void onBlurFinished(@NonNull Bitmap bitmap, long blurNanos);
+    }
+
+    private final BlurAlgorithm algorithm;
+    private final Callback callback;
+    private final HandlerThread thread = new HandlerThread("BlurView-blur");
+    private final Handler workerHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private boolean busy;
+    private boolean released;
+
+    // Written on the main thread before posting blurTask, Handler gives the happens-before edge
+    private Bitmap bitmap;
+    private float blurRadius;
+    private int width;
+    private int height;
+    // Written on the worker thread before posting deliverTask
+    private Bitmap result;
+    private long blurNanos;
+
+    private final Runnable blurTask = new Runnable() {
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            result = algorithm.blurRegion(bitmap, blurRadius, width, height);
+            blurNanos = System.nanoTime() - start;
+            mainHandler.post(deliverTask);
+        }
+    };
+
+    private final Runnable deliverTask = new Runnable() {
+        @Override
+        public void run() {
+            busy = false;
+            Bitmap blurred = result;
+            result = null;
+            bitmap = null;
+            if (!released) {
+                callback.onBlurFinished(blurred, blurNanos);
+            }
+        }
+    };
+
+    BlurWorker(@NonNull BlurAlgorithm algorithm, @NonNull Callback callback) {
+        this.algorithm = algorithm;
+        this.callback = callback;
+        thread.start();
+        workerHandler = new Handler(thread.getLooper());
+    }
+
+    boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * Starts blurring the top left part of the bitmap in place. Must not be called while {@link #isBusy()}
+     */
+    void blur(@NonNull Bitmap bitmap, float blurRadius, int width, int height) {
+        if (busy) {
+            throw new IllegalStateException("Previous blur is still in flight");
+        }
+        busy = true;
+        this.bitmap = bitmap;
+        this.blurRadius = blurRadius;
+        this.width = width;
+        this.height = height;
+        workerHandler.post(blurTask);
+    }
+
+    /**
+     * Stops the thread once the blur in flight, if any, is finished. Results are no longer delivered.
+     *
+     * @param destroyAlgorithm true to destroy the algorithm on the worker thread,
+     *                         so it's never destroyed in the middle of a blur
+     */
+    void release(final boolean destroyAlgorithm) {
+        released = true;
+        mainHandler.removeCallbacks(deliverTask);
+        if (destroyAlgorithm) {
+            workerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    algorithm.destroy();
+                }
+            });
+        }
+        thread.quitSafely();
+    }
+}
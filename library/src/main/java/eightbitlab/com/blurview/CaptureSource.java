@@ -0,0 +1,56 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Copies the content of a View that doesn't draw it in View.draw() on a software Canvas,
+ * like a SurfaceView or a TextureView.
+ * <p>
+ * All methods must be called on the main thread, results are delivered on the main thread too.
+ */
+interface CaptureSource {
+
+    interface Callback {
+        /**
+         * @param source source that finished the capture
+         * @param bitmap captured content, or null if the capture failed.
+         *               Must not be used after the next {@link #capture} call.
+         */
+        void onCaptureFinished(@NonNull CaptureSource source, @Nullable Bitmap bitmap);
+    }
+
+    @NonNull
+    View getView();
+
+    /**
+     * @return true if the View has content to capture
+     */
+    boolean isReady();
+
+    boolean isInFlight();
+
+    /**
+     * Requests a copy of the View region, scaled to the given size.
+     * The result may be delivered before this method returns.
+     *
+     * @param srcRect region of the View to copy, in its own coordinates
+     * @return false if the request wasn't issued, because the previous one is still pending
+     */
+    boolean capture(@NonNull Rect srcRect, int width, int height);
+
+    /**
+     * @return true if the content is shown behind the window, through a hole the View punches in the hierarchy.
+     * Otherwise it's drawn in place of the View.
+     */
+    boolean isBehindWindow();
+
+    /**
+     * Releases the bitmaps and threads. Pending results are no longer delivered.
+     */
+    void release();
+}
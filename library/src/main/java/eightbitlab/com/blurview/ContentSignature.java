@@ -0,0 +1,31 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Cheap 64-bit signature of a pixel buffer, used to detect whether the captured content has changed.
+ */
+final class ContentSignature {
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private ContentSignature() {
+    }
+
+    /**
+     * @param pixels pixel buffer
+     * @param length amount of pixels to include, starting from the first one
+     * @return signature of the pixels. Equal buffers always have equal signatures.
+     */
+    static long of(@NonNull int[] pixels, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ pixels[i]) * PRIME;
+        }
+        // Final mix, so changes in the last pixels affect the high bits too
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
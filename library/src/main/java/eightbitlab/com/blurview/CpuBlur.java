@@ -0,0 +1,112 @@
+package eightbitlab.com.blurview;
+
+import static eightbitlab.com.blurview.BlurController.DEFAULT_SCALE_FACTOR;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Base of the blur algorithms implemented in pure Java, which copy the bitmap into an int[] buffer,
+ * blur it in place with a {@link Kernel} and copy it back.
+ * <p>
+ * By default all of them share one process-wide {@link BandExecutor}, so every BlurView doesn't start its own threads.
+ * An algorithm created with an explicit thread count owns its executor and shuts it down in {@link #destroy()}.
+ */
+abstract class CpuBlur implements BlurAlgorithm {
+
+    interface Kernel {
+        /**
+         * Blurs the pixels in place
+         *
+         * @param pixels ARGB pixels, row by row
+         */
+        void blur(@NonNull int[] pixels, int width, int height, float radius);
+
+        /**
+         * Frees the scratch buffers, the next blur allocates them again
+         */
+        void releaseBuffers();
+    }
+
+    private static BandExecutor sharedExecutor;
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final BandExecutor executor;
+    private final boolean ownsExecutor;
+    private final Kernel kernel;
+    private int[] pixels = new int[0];
+
+    CpuBlur(@NonNull BandExecutor executor, @NonNull Kernel kernel) {
+        this.executor = executor;
+        this.ownsExecutor = executor != sharedExecutor;
+        this.kernel = kernel;
+    }
+
+    /**
+     * @return the executor shared by all the algorithms created without an explicit thread count.
+     * Its threads are daemons and are never shut down, they just wait while there is nothing to blur.
+     */
+    static synchronized BandExecutor sharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = new BandExecutor(BandExecutor.defaultThreadCount());
+        }
+        return sharedExecutor;
+    }
+
+    @Override
+    public Bitmap blur(@NonNull Bitmap bitmap, float blurRadius) {
+        return blurRegion(bitmap, blurRadius, bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    /**
+     * Copies only the region to the buffer, so the kernel doesn't blur the rest of the bitmap at all
+     */
+    @Override
+    public Bitmap blurRegion(@NonNull Bitmap bitmap, float blurRadius, int width, int height) {
+        // Not shrunk, the region changes on every frame of an animated resize
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        kernel.blur(pixels, width, height, blurRadius);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    @Override
+    public void destroy() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void releaseResources() {
+        pixels = new int[0];
+        kernel.releaseBuffers();
+    }
+
+    @Override
+    public boolean canModifyBitmap() {
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public Bitmap.Config getSupportedBitmapConfig() {
+        return Bitmap.Config.ARGB_8888;
+    }
+
+    @Override
+    public float scaleFactor() {
+        return DEFAULT_SCALE_FACTOR;
+    }
+
+    @Override
+    public void render(@NonNull Canvas canvas, @NonNull Bitmap bitmap) {
+        canvas.drawBitmap(bitmap, 0f, 0f, paint);
+    }
+}
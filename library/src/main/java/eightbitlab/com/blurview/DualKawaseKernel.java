@@ -0,0 +1,318 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Dual filter (dual Kawase) blur over ARGB int[] pixel buffers.
+ * Based on the "Bandwidth-Efficient Rendering" talk by Marius Bjørge.
+ * <p>
+ * The image is downsampled by 2 several times with a 5-tap filter, then upsampled back with an 8-tap filter.
+ * Every pass samples a fixed amount of pixels, so the cost per pixel depends only on the amount of passes,
+ * which grows logarithmically with the radius.
+ * <p>
+ * Pixels are blurred with premultiplied alpha, see {@link PremultipliedAlpha}.
+ * Rows of every pass are processed in parallel bands by the {@link BandExecutor}.
+ * Pyramid levels and sampling tables are reused between calls, so blurring doesn't allocate
+ * once the buffer size is stable.
+ */
+final class DualKawaseKernel implements CpuBlur.Kernel {
+
+    static final int MAX_PASSES = 6;
+    private static final float MAX_OFFSET = 4f;
+
+    // Bilinear weights are 8 bit fixed point
+    private static final int WEIGHT_SHIFT = 8;
+    private static final int WEIGHT_ONE = 1 << WEIGHT_SHIFT;
+
+    // Sample offsets, as multiples of the pass offset, in source pixels
+    private static final float[] DOWN_OFFSETS = {-1f, 0f, 1f};
+    private static final float[] UP_OFFSETS = {-0.5f, -0.25f, 0f, 0.25f, 0.5f};
+
+    private final BandExecutor executor;
+
+    // levels[0] is the caller's buffer, the rest are owned by the kernel
+    private final int[][] levels = new int[MAX_PASSES + 1][];
+    private final int[] levelWidths = new int[MAX_PASSES + 1];
+    private final int[] levelHeights = new int[MAX_PASSES + 1];
+
+    // Index of the first pixel of a bilinear sample and the weight of the second one, per sample offset
+    private int[][] columnIndices = new int[UP_OFFSETS.length][0];
+    private int[][] columnWeights = new int[UP_OFFSETS.length][0];
+    private int[][] rowIndices = new int[UP_OFFSETS.length][0];
+    private int[][] rowWeights = new int[UP_OFFSETS.length][0];
+
+    private int[] src;
+    private int srcWidth;
+    private int[] dst;
+    private int dstWidth;
+
+    private final BandExecutor.Task downPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            for (int y = from; y < to; y++) {
+                downsampleRow(y);
+            }
+        }
+    };
+
+    private final BandExecutor.Task upPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            for (int y = from; y < to; y++) {
+                upsampleRow(y);
+            }
+        }
+    };
+
+    // Converts the rows of levels[0], before the first pass and after the last one
+    private final BandExecutor.Task premultiplyPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] pixels = levels[0];
+            for (int i = from * levelWidths[0]; i < to * levelWidths[0]; i++) {
+                pixels[i] = PremultipliedAlpha.premultiply(pixels[i]);
+            }
+        }
+    };
+
+    private final BandExecutor.Task unpremultiplyPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] pixels = levels[0];
+            for (int i = from * levelWidths[0]; i < to * levelWidths[0]; i++) {
+                pixels[i] = PremultipliedAlpha.unpremultiply(pixels[i]);
+            }
+        }
+    };
+
+    DualKawaseKernel(@NonNull BandExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Blurs the pixels in place, approximating a Gaussian blur of the given radius
+     *
+     * @param pixels ARGB pixels, row by row
+     * @param radius blur radius in pixels, with the same meaning as in RenderScript's ScriptIntrinsicBlur
+     */
+    @Override
+    public void blur(@NonNull int[] pixels, int width, int height, float radius) {
+        if (radius <= 0) {
+            return;
+        }
+        float sigma = sigmaFor(radius);
+        int passes = Math.min(passesFor(sigma), maxPasses(width, height));
+        blur(pixels, width, height, passes, offsetFor(sigma, passes));
+    }
+
+    /**
+     * Frees the pyramid levels and the sampling tables, the next blur allocates them again
+     */
+    @Override
+    public void releaseBuffers() {
+        for (int level = 1; level < levels.length; level++) {
+            levels[level] = null;
+        }
+        columnIndices = new int[UP_OFFSETS.length][0];
+        columnWeights = new int[UP_OFFSETS.length][0];
+        rowIndices = new int[UP_OFFSETS.length][0];
+        rowWeights = new int[UP_OFFSETS.length][0];
+    }
+
+    /**
+     * Same relation as in ScriptIntrinsicBlur, so switching the algorithm doesn't change the look
+     */
+    static float sigmaFor(float radius) {
+        return 0.4f * radius + 0.6f;
+    }
+
+    /**
+     * The blur of the filter is roughly 2^passes * (0.25 + 0.5 * offset) sigma.
+     * Picks the least amount of passes that reaches the sigma with an offset of at most 1,
+     * larger offsets skip pixels and produce artifacts.
+     */
+    static int passesFor(float sigma) {
+        int passes = 1;
+        while (passes < MAX_PASSES && (1 << passes) * 0.75f < sigma) {
+            passes++;
+        }
+        return passes;
+    }
+
+    static float offsetFor(float sigma, int passes) {
+        if (passes == 0) {
+            return 0f;
+        }
+        float offset = (sigma / (1 << passes) - 0.25f) / 0.5f;
+        return Math.max(0f, Math.min(MAX_OFFSET, offset));
+    }
+
+    private static int maxPasses(int width, int height) {
+        int passes = 0;
+        while (passes < MAX_PASSES && width >= 4 && height >= 4) {
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+            passes++;
+        }
+        return passes;
+    }
+
+    /**
+     * Blurs the pixels in place
+     *
+     * @param pixels ARGB pixels, row by row
+     * @param passes amount of downsampling passes, clamped to [0, {@link #MAX_PASSES}].
+     *               Also limited by the image size, every level is at least 2 pixels wide and high.
+     * @param offset sampling distance multiplier, 1 is the classic filter
+     */
+    void blur(@NonNull int[] pixels, int width, int height, int passes, float offset) {
+        if (width < 4 || height < 4) {
+            return;
+        }
+        levels[0] = pixels;
+        levelWidths[0] = width;
+        levelHeights[0] = height;
+        int levelCount = 0;
+        while (levelCount < Math.min(passes, MAX_PASSES)
+                && levelWidths[levelCount] >= 4 && levelHeights[levelCount] >= 4) {
+            int level = levelCount + 1;
+            int levelWidth = (levelWidths[levelCount] + 1) / 2;
+            int levelHeight = (levelHeights[levelCount] + 1) / 2;
+            if (levels[level] == null || levels[level].length < levelWidth * levelHeight) {
+                levels[level] = new int[levelWidth * levelHeight];
+            }
+            levelWidths[level] = levelWidth;
+            levelHeights[level] = levelHeight;
+            levelCount = level;
+        }
+
+        if (levelCount > 0) {
+            executor.execute(premultiplyPass, height);
+        }
+        for (int level = 0; level < levelCount; level++) {
+            runPass(level, level + 1, DOWN_OFFSETS, offset, downPass);
+        }
+        for (int level = levelCount; level > 0; level--) {
+            runPass(level, level - 1, UP_OFFSETS, offset, upPass);
+        }
+        if (levelCount > 0) {
+            executor.execute(unpremultiplyPass, height);
+        }
+        levels[0] = null;
+        src = null;
+        dst = null;
+    }
+
+    private void runPass(int from, int to, float[] offsets, float offset, BandExecutor.Task task) {
+        src = levels[from];
+        srcWidth = levelWidths[from];
+        dst = levels[to];
+        dstWidth = levelWidths[to];
+        int dstHeight = levelHeights[to];
+        ensureTableSize(Math.max(dstWidth, dstHeight));
+        fillTables(columnIndices, columnWeights, offsets, offset, srcWidth, dstWidth);
+        fillTables(rowIndices, rowWeights, offsets, offset, levelHeights[from], dstHeight);
+        executor.execute(task, dstHeight);
+    }
+
+    private void ensureTableSize(int size) {
+        if (columnIndices[0].length >= size) {
+            return;
+        }
+        columnIndices = new int[UP_OFFSETS.length][size];
+        columnWeights = new int[UP_OFFSETS.length][size];
+        rowIndices = new int[UP_OFFSETS.length][size];
+        rowWeights = new int[UP_OFFSETS.length][size];
+    }
+
+    /**
+     * Precomputes the bilinear sample positions along one axis, which are the same for every row or column
+     */
+    private static void fillTables(int[][] indices, int[][] weights, float[] offsets, float offset,
+                                   int srcSize, int dstSize) {
+        float scale = (float) srcSize / dstSize;
+        for (int k = 0; k < offsets.length; k++) {
+            int[] index = indices[k];
+            int[] weight = weights[k];
+            float shift = offsets[k] * offset;
+            for (int i = 0; i < dstSize; i++) {
+                // Pixel centers are at i + 0.5, edge pixels are repeated outside of the image
+                float position = Math.max(0f, Math.min(srcSize - 1, (i + 0.5f) * scale + shift - 0.5f));
+                int first = Math.min((int) position, srcSize - 2);
+                index[i] = first;
+                weight[i] = Math.round((position - first) * WEIGHT_ONE);
+            }
+        }
+    }
+
+    /**
+     * Center with weight 4 and 4 diagonal samples, divided by 8.
+     * Red and blue, alpha and green are summed up in pairs, in 16 bit lanes of one int.
+     */
+    private void downsampleRow(int y) {
+        int rowOffset = y * dstWidth;
+        for (int x = 0; x < dstWidth; x++) {
+            int center = sample(1, x, 1, y);
+            int p1 = sample(0, x, 0, y);
+            int p2 = sample(2, x, 0, y);
+            int p3 = sample(0, x, 2, y);
+            int p4 = sample(2, x, 2, y);
+            int rb = 4 * (center & 0xff00ff) + (p1 & 0xff00ff) + (p2 & 0xff00ff) + (p3 & 0xff00ff) + (p4 & 0xff00ff);
+            int ag = 4 * ((center >>> 8) & 0xff00ff) + ((p1 >>> 8) & 0xff00ff) + ((p2 >>> 8) & 0xff00ff)
+                    + ((p3 >>> 8) & 0xff00ff) + ((p4 >>> 8) & 0xff00ff);
+            dst[rowOffset + x] = ((ag + 0x40004) >>> 3 & 0xff00ff) << 8 | ((rb + 0x40004) >>> 3 & 0xff00ff);
+        }
+    }
+
+    /**
+     * 4 samples along the axes with weight 1 and 4 diagonal samples with weight 2, divided by 12
+     */
+    private void upsampleRow(int y) {
+        int rowOffset = y * dstWidth;
+        for (int x = 0; x < dstWidth; x++) {
+            int left = sample(0, x, 2, y);
+            int right = sample(4, x, 2, y);
+            int top = sample(2, x, 0, y);
+            int bottom = sample(2, x, 4, y);
+            int p1 = sample(1, x, 1, y);
+            int p2 = sample(3, x, 1, y);
+            int p3 = sample(1, x, 3, y);
+            int p4 = sample(3, x, 3, y);
+            int rb = (left & 0xff00ff) + (right & 0xff00ff) + (top & 0xff00ff) + (bottom & 0xff00ff)
+                    + 2 * ((p1 & 0xff00ff) + (p2 & 0xff00ff) + (p3 & 0xff00ff) + (p4 & 0xff00ff));
+            int ag = ((left >>> 8) & 0xff00ff) + ((right >>> 8) & 0xff00ff)
+                    + ((top >>> 8) & 0xff00ff) + ((bottom >>> 8) & 0xff00ff)
+                    + 2 * (((p1 >>> 8) & 0xff00ff) + ((p2 >>> 8) & 0xff00ff)
+                    + ((p3 >>> 8) & 0xff00ff) + ((p4 >>> 8) & 0xff00ff));
+            dst[rowOffset + x] = divideBy12(ag >>> 16) << 24 | divideBy12(rb >>> 16) << 16
+                    | divideBy12(ag & 0xffff) << 8 | divideBy12(rb & 0xffff);
+        }
+    }
+
+    /**
+     * Rounded division, exact for every sum of 12 channel values
+     */
+    static int divideBy12(int value) {
+        return (value + 6) * 2731 >>> 15;
+    }
+
+    private int sample(int column, int x, int row, int y) {
+        int x0 = columnIndices[column][x];
+        int wx = columnWeights[column][x];
+        int y0 = rowIndices[row][y];
+        int wy = rowWeights[row][y];
+        int top = y0 * srcWidth + x0;
+        int bottom = top + srcWidth;
+        return lerp(lerp(src[top], src[top + 1], wx), lerp(src[bottom], src[bottom + 1], wx), wy);
+    }
+
+    /**
+     * Interpolates two channels at once, every product fits into its 16 bit lane
+     */
+    private static int lerp(int first, int second, int weight) {
+        int inverse = WEIGHT_ONE - weight;
+        int rb = ((first & 0xff00ff) * inverse + (second & 0xff00ff) * weight + 0x800080) >>> WEIGHT_SHIFT & 0xff00ff;
+        int ag = (((first >>> 8) & 0xff00ff) * inverse + ((second >>> 8) & 0xff00ff) * weight + 0x800080) & 0xff00ff00;
+        return ag | rb;
+    }
+}
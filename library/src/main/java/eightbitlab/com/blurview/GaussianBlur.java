@@ -0,0 +1,28 @@
+package eightbitlab.com.blurview;
+
+/**
+ * True separable Gaussian blur implemented in pure Java, processed on the CPU by a shared pool of worker threads.
+ * Looks the same as RenderScriptBlur with the same radius, without depending on RenderScript.
+ * <p>
+ * The cost per pixel grows linearly with the radius, so for large radii {@link KawaseBlur} is cheaper.
+ * Kernel weights are cached per radius, so animating the radius doesn't recompute them on every frame.
+ * The blur radius is limited to 1..128.
+ */
+public class GaussianBlur extends CpuBlur {
+
+    public GaussianBlur() {
+        this(sharedExecutor());
+    }
+
+    /**
+     * @param threadCount amount of threads used for blurring, including the calling thread.
+     *                    The threads are owned by this instance and stopped by {@link #destroy()}
+     */
+    public GaussianBlur(int threadCount) {
+        this(new BandExecutor(threadCount));
+    }
+
+    private GaussianBlur(BandExecutor executor) {
+        super(executor, new GaussianKernel(executor));
+    }
+}
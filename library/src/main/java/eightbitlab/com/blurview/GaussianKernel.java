@@ -0,0 +1,245 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Separable Gaussian blur over ARGB int[] pixel buffers.
+ * <p>
+ * Pixels are split into one int[] plane per channel, and both passes are a sum of shifted rows multiplied by a weight:
+ * {@code sum[x] += weight * line[x + k]}. Edges are handled once per row by padding, or by clamping the row index,
+ * so the inner loops are plain multiply-adds over int arrays, without branches or bounds logic,
+ * which the JIT can unroll and vectorize.
+ * <p>
+ * Weights are 16 bit fixed point and are cached per radius, with half a pixel precision,
+ * so changing the radius on every frame, for example from a slider, doesn't recompute them.
+ * Rows are processed in parallel bands by the {@link BandExecutor}.
+ * All the buffers are reused between calls, so blurring doesn't allocate once the buffer size is stable.
+ */
+final class GaussianKernel implements CpuBlur.Kernel {
+
+    static final int MAX_RADIUS = 128;
+
+    private static final int WEIGHT_SHIFT = 16;
+    private static final int WEIGHT_ONE = 1 << WEIGHT_SHIFT;
+    // Radius keys are in half pixels
+    private static final int KEYS_PER_PIXEL = 2;
+
+    private final BandExecutor executor;
+    private final int[][] weightCache = new int[MAX_RADIUS * KEYS_PER_PIXEL + 1][];
+
+    // One plane per channel, in ARGB order
+    private final int[][] planes = new int[4][];
+    private final int[][] horizontal = new int[4][];
+    // Per band: padded source line and accumulator
+    private final int[][] lines;
+    private final int[][] sums;
+    private int capacity;
+
+    private int width;
+    private int height;
+    private int[] weights;
+
+    private final BandExecutor.Task horizontalPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] line = lines[band];
+            int[] sum = sums[band];
+            for (int channel = 0; channel < 4; channel++) {
+                for (int y = from; y < to; y++) {
+                    blurRow(planes[channel], horizontal[channel], y * width, line, sum);
+                }
+            }
+        }
+    };
+
+    private final BandExecutor.Task verticalPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] sum = sums[band];
+            for (int channel = 0; channel < 4; channel++) {
+                for (int y = from; y < to; y++) {
+                    blurColumns(horizontal[channel], planes[channel], y, sum);
+                }
+            }
+        }
+    };
+
+    GaussianKernel(@NonNull BandExecutor executor) {
+        this.executor = executor;
+        this.lines = new int[executor.getBandCount()][];
+        this.sums = new int[executor.getBandCount()][];
+    }
+
+    /**
+     * Blurs the pixels in place
+     *
+     * @param pixels ARGB pixels, row by row
+     * @param radius blur radius in pixels, with the same meaning as in RenderScript's ScriptIntrinsicBlur,
+     *               clamped to [0, {@link #MAX_RADIUS}]
+     */
+    @Override
+    public void blur(@NonNull int[] pixels, int width, int height, float radius) {
+        if (Math.round(radius * KEYS_PER_PIXEL) <= 0 || width <= 0 || height <= 0) {
+            return;
+        }
+        this.weights = weightsFor(radius);
+        this.width = width;
+        this.height = height;
+        ensureCapacity(width, height, weights.length);
+
+        split(pixels, width * height);
+        executor.execute(horizontalPass, height);
+        executor.execute(verticalPass, height);
+        merge(pixels, width * height);
+    }
+
+    /**
+     * Frees the planes and the line buffers, the next blur allocates them again.
+     * Cached weights are kept, they are small.
+     */
+    @Override
+    public void releaseBuffers() {
+        for (int channel = 0; channel < 4; channel++) {
+            planes[channel] = null;
+            horizontal[channel] = null;
+        }
+        capacity = 0;
+        for (int band = 0; band < lines.length; band++) {
+            lines[band] = null;
+            sums[band] = null;
+        }
+    }
+
+    /**
+     * @return cached weights for the radius rounded to half a pixel
+     */
+    int[] weightsFor(float radius) {
+        int key = Math.round(Math.max(0f, Math.min(radius, MAX_RADIUS)) * KEYS_PER_PIXEL);
+        int[] cached = weightCache[key];
+        if (cached == null) {
+            cached = computeWeights((float) key / KEYS_PER_PIXEL);
+            weightCache[key] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Same kernel size and sigma as in ScriptIntrinsicBlur, so switching the algorithm doesn't change the look
+     *
+     * @return 2 * ceil(radius) + 1 weights that sum up to exactly {@link #WEIGHT_ONE}
+     */
+    static int[] computeWeights(float radius) {
+        int size = (int) Math.ceil(radius);
+        double sigma = 0.4 * radius + 0.6;
+        double[] gaussian = new double[2 * size + 1];
+        double total = 0;
+        for (int i = -size; i <= size; i++) {
+            gaussian[i + size] = Math.exp(-i * i / (2 * sigma * sigma));
+            total += gaussian[i + size];
+        }
+        int[] weights = new int[gaussian.length];
+        int weightSum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (int) Math.round(gaussian[i] / total * WEIGHT_ONE);
+            weightSum += weights[i];
+        }
+        // Rounding error goes to the center, so flat areas keep their exact color
+        weights[size] += WEIGHT_ONE - weightSum;
+        return weights;
+    }
+
+    private void ensureCapacity(int width, int height, int kernelSize) {
+        int size = width * height;
+        if (capacity < size) {
+            for (int channel = 0; channel < 4; channel++) {
+                planes[channel] = new int[size];
+                horizontal[channel] = new int[size];
+            }
+            capacity = size;
+        }
+        int lineLength = width + kernelSize - 1;
+        for (int band = 0; band < lines.length; band++) {
+            if (lines[band] == null || lines[band].length < lineLength) {
+                lines[band] = new int[lineLength];
+            }
+            if (sums[band] == null || sums[band].length < width) {
+                sums[band] = new int[width];
+            }
+        }
+    }
+
+    private void split(int[] pixels, int size) {
+        int[] a = planes[0];
+        int[] r = planes[1];
+        int[] g = planes[2];
+        int[] b = planes[3];
+        for (int i = 0; i < size; i++) {
+            int p = PremultipliedAlpha.premultiply(pixels[i]);
+            a[i] = p >>> 24;
+            r[i] = (p >> 16) & 0xff;
+            g[i] = (p >> 8) & 0xff;
+            b[i] = p & 0xff;
+        }
+    }
+
+    private void merge(int[] pixels, int size) {
+        int[] a = planes[0];
+        int[] r = planes[1];
+        int[] g = planes[2];
+        int[] b = planes[3];
+        for (int i = 0; i < size; i++) {
+            pixels[i] = PremultipliedAlpha.unpremultiply(a[i] << 24 | r[i] << 16 | g[i] << 8 | b[i]);
+        }
+    }
+
+    private void blurRow(int[] src, int[] dst, int offset, int[] line, int[] sum) {
+        int[] weights = this.weights;
+        int size = weights.length / 2;
+        int width = this.width;
+
+        // Edge pixels are repeated outside of the row
+        int first = src[offset];
+        int last = src[offset + width - 1];
+        for (int i = 0; i < size; i++) {
+            line[i] = first;
+            line[size + width + i] = last;
+        }
+        System.arraycopy(src, offset, line, size, width);
+
+        for (int x = 0; x < width; x++) {
+            sum[x] = WEIGHT_ONE / 2;
+        }
+        for (int k = 0; k < weights.length; k++) {
+            int weight = weights[k];
+            for (int x = 0; x < width; x++) {
+                sum[x] += weight * line[x + k];
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            dst[offset + x] = sum[x] >>> WEIGHT_SHIFT;
+        }
+    }
+
+    private void blurColumns(int[] src, int[] dst, int y, int[] sum) {
+        int[] weights = this.weights;
+        int size = weights.length / 2;
+        int width = this.width;
+        int lastRow = height - 1;
+
+        for (int x = 0; x < width; x++) {
+            sum[x] = WEIGHT_ONE / 2;
+        }
+        for (int k = 0; k < weights.length; k++) {
+            int weight = weights[k];
+            // Edge rows are repeated outside of the image
+            int row = Math.min(lastRow, Math.max(0, y + k - size)) * width;
+            for (int x = 0; x < width; x++) {
+                sum[x] += weight * src[row + x];
+            }
+        }
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            dst[offset + x] = sum[x] >>> WEIGHT_SHIFT;
+        }
+    }
+}
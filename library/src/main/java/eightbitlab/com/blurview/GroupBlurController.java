@@ -0,0 +1,210 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Controller of a BlurView that belongs to a {@link BlurGroup}.
+ * Doesn't capture anything itself, only draws its part of the group's blurred bitmap.
+ */
+final class GroupBlurController implements BlurController {
+
+    private static final String TAG = GroupBlurController.class.getSimpleName();
+
+    private final View blurView;
+    private final BlurGroup group;
+    private final int[] rootLocation = new int[2];
+    private final int[] blurViewLocation = new int[2];
+
+    @ColorInt
+    private int overlayColor;
+    private boolean blurEnabled = true;
+    private boolean autoUpdate = true;
+    private boolean paused;
+    // Offset relative to the root the BlurView was last drawn with
+    private int drawnLeft;
+    private int drawnTop;
+
+    GroupBlurController(@NonNull View blurView, @NonNull BlurGroup group, @ColorInt int overlayColor) {
+        this.blurView = blurView;
+        this.group = group;
+        this.overlayColor = overlayColor;
+        group.addMember(this);
+    }
+
+    boolean isActive() {
+        return blurEnabled && autoUpdate && !paused;
+    }
+
+    /**
+     * The group bitmap is drawn with the offset of the BlurView, so it's only correct
+     * until the BlurView moves relative to the root
+     */
+    void invalidateIfMoved() {
+        if (!blurEnabled) {
+            return;
+        }
+        updateOffset();
+        if (blurViewLocation[0] != drawnLeft || blurViewLocation[1] != drawnTop) {
+            blurView.invalidate();
+        }
+    }
+
+    @Override
+    public boolean draw(Canvas canvas) {
+        if (!blurEnabled || !group.isReady()) {
+            return true;
+        }
+        // Not blurring itself or other BlurViews to not cause recursive draw calls
+        if (canvas instanceof BlurViewCanvas) {
+            return false;
+        }
+
+        updateOffset();
+        drawnLeft = blurViewLocation[0];
+        drawnTop = blurViewLocation[1];
+
+        canvas.save();
+        canvas.clipRect(0, 0, blurView.getWidth(), blurView.getHeight());
+        canvas.translate(-drawnLeft, -drawnTop);
+        group.render(canvas);
+        canvas.restore();
+//        if (overlayColor != TRANSPARENT) {
+//            canvas.drawColor(overlayColor);
+//        }
+        return true;
+    }
+
+    /**
+     * Stores the offset of the BlurView relative to the root in blurViewLocation
+     */
+    private void updateOffset() {
+        group.getRootView().getLocationOnScreen(rootLocation);
+        blurView.getLocationOnScreen(blurViewLocation);
+        blurViewLocation[0] -= rootLocation[0];
+        blurViewLocation[1] -= rootLocation[1];
+    }
+
+    @Override
+    public void updateBlurViewSize() {
+        blurView.invalidate();
+    }
+
+    /**
+     * The group stops capturing once all its members are paused
+     */
+    @Override
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        group.updateListener();
+    }
+
+    @Override
+    public void destroy() {
+        group.removeMember(this);
+    }
+
+    @Override
+    public BlurViewFacade setBlurEnabled(boolean enabled) {
+        this.blurEnabled = enabled;
+        group.updateListener();
+        blurView.invalidate();
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setBlurAutoUpdate(boolean enabled) {
+        this.autoUpdate = enabled;
+        group.updateListener();
+        return this;
+    }
+
+    /**
+     * Shared by the whole group, see {@link BlurGroup#setFrameClearDrawable(Drawable)}
+     */
+    @Override
+    public BlurViewFacade setFrameClearDrawable(@Nullable Drawable frameClearDrawable) {
+        group.setFrameClearDrawable(frameClearDrawable);
+        return this;
+    }
+
+    /**
+     * Shared by the whole group, see {@link BlurGroup#setBlurRadius(float)}
+     */
+    @Override
+    public BlurViewFacade setBlurRadius(float radius) {
+        group.setBlurRadius(radius);
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setOverlayColor(int overlayColor) {
+        if (this.overlayColor != overlayColor) {
+            this.overlayColor = overlayColor;
+            blurView.invalidate();
+        }
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setContentChangeDetection(boolean enabled) {
+        Log.w(TAG, "Content change detection is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setAsyncBlur(boolean enabled) {
+        Log.w(TAG, "Async blur is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setUpdatePolicy(@NonNull UpdatePolicy policy) {
+        Log.w(TAG, "Update policy is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade captureOnce() {
+        return captureOnce(0f);
+    }
+
+    @Override
+    public BlurViewFacade captureOnce(float scaleFactor) {
+        Log.w(TAG, "Snapshot mode is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade refresh() {
+        Log.w(TAG, "Snapshot mode is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setScrollingView(@Nullable View scrollingView) {
+        Log.w(TAG, "Scroll caching is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setLowPrecision(boolean enabled) {
+        Log.w(TAG, "Low precision is not supported for BlurViews in a BlurGroup");
+        return this;
+    }
+
+    /**
+     * Shared by the whole group, see {@link BlurGroup#setBlurMetricsListener(BlurMetricsListener)}
+     */
+    @Override
+    public BlurViewFacade setBlurMetricsListener(@Nullable BlurMetricsListener listener) {
+        group.setBlurMetricsListener(listener);
+        return this;
+    }
+}
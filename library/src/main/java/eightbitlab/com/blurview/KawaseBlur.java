@@ -0,0 +1,28 @@
+package eightbitlab.com.blurview;
+
+/**
+ * Dual Kawase blur implemented in pure Java, processed on the CPU by a shared pool of worker threads.
+ * Approximates a Gaussian blur, but the cost per pixel grows only logarithmically with the radius,
+ * so it's meant for heavy blurs with large radii, which are out of RenderScript's 25 px limit.
+ * <p>
+ * The downsampled pyramid levels are reused between frames while the bitmap size stays the same.
+ * The radius isn't limited in practice.
+ */
+public class KawaseBlur extends CpuBlur {
+
+    public KawaseBlur() {
+        this(sharedExecutor());
+    }
+
+    /**
+     * @param threadCount amount of threads used for blurring, including the calling thread.
+     *                    The threads are owned by this instance and stopped by {@link #destroy()}
+     */
+    public KawaseBlur(int threadCount) {
+        this(new BandExecutor(threadCount));
+    }
+
+    private KawaseBlur(BandExecutor executor) {
+        super(executor, new DualKawaseKernel(executor));
+    }
+}
@@ -2,7 +2,9 @@ package eightbitlab.com.blurview;
 
 import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
+import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 // Used in edit mode and in case if no BlurController was set
@@ -16,6 +18,10 @@ public class NoOpController implements BlurController {
     public void updateBlurViewSize() {
     }
 
+    @Override
+    public void setPaused(boolean paused) {
+    }
+
     @Override
     public void destroy() {
     }
@@ -44,4 +50,49 @@ public class NoOpController implements BlurController {
     public BlurViewFacade setBlurAutoUpdate(boolean enabled) {
         return this;
     }
+
+    @Override
+    public BlurViewFacade setContentChangeDetection(boolean enabled) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setAsyncBlur(boolean enabled) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setUpdatePolicy(@NonNull UpdatePolicy policy) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade captureOnce() {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade captureOnce(float scaleFactor) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade refresh() {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setScrollingView(@Nullable View scrollingView) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setLowPrecision(boolean enabled) {
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setBlurMetricsListener(@Nullable BlurMetricsListener listener) {
+        return this;
+    }
 }
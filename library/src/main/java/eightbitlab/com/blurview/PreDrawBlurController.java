@@ -3,17 +3,11 @@ package eightbitlab.com.blurview;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
-import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
-import android.view.PixelCopy;
-import android.view.SurfaceView;
 import android.view.View;
-import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 
 import androidx.annotation.ColorInt;
@@ -38,11 +32,32 @@ public final class PreDrawBlurController implements BlurController {
     @ColorInt
     public static final int TRANSPARENT = 0;
 
+    // SurfaceView and TextureView content changes don't trigger pre-draws, so it's polled at roughly the same rate
+    // as the 60 ms throttle that was used before UpdatePolicy existed
+    private static final UpdatePolicy DEFAULT_SURFACE_POLICY = UpdatePolicy.maxFps(16);
+    // Scroll caching doesn't see the changes outside of the scrolled content,
+    // so everything is captured again once the scroll stops for that long
+    private static final long SCROLL_SETTLE_DELAY_MS = 100;
+    // ScriptIntrinsicBlur limit, bounds the quality of a snapshot, see pickScaleFactor()
+    private static final float MAX_SNAPSHOT_RADIUS = 25f;
+
     private float blurRadius = DEFAULT_BLUR_RADIUS;
+    // Picked from the blur radius, see SizeScaler.scaleFactorFor()
+    private float scaleFactor;
 
     private final BlurAlgorithm blurAlgorithm;
     private BlurViewCanvas internalCanvas;
     private Bitmap internalBitmap;
+    // Downscaled size of the BlurView. The buffers may be larger after a resize,
+    // then only their top left part, past the margin, is drawn, see resize()
+    private int contentWidth;
+    private int contentHeight;
+    // Downscaled pixels captured on each side of the BlurView, so the blur near its edges reads the real content.
+    // The BlurView starts at (captureMargin, captureMargin) in the buffers.
+    private int captureMargin;
+    // BlurView size divided by the downscaled size, see updateContentScale()
+    private float contentScaleX = 1f;
+    private float contentScaleY = 1f;
 
     @SuppressWarnings("WeakerAccess")
     final View blurView;
@@ -54,47 +69,164 @@ public final class PreDrawBlurController implements BlurController {
     private final ViewTreeObserver.OnPreDrawListener drawListener = new ViewTreeObserver.OnPreDrawListener() {
         @Override
         public boolean onPreDraw() {
-
-//            Log.d(TAG, "onPreDraw: start");
             // Not invalidating a View here, just updating the Bitmap.
             // This relies on the HW accelerated bitmap drawing behavior in Android
             // If the bitmap was drawn on HW accelerated canvas, it holds a reference to it and on next
             // drawing pass the updated content of the bitmap will be rendered on the screen
+            if (selfInvalidation.consumePreDraw()) {
+                // This frame only draws the blurred frame of the last update
+                return true;
+            }
+            requestUpdate(0);
+            return true;
+        }
+    };
 
-            boolean hasSurface = hasSurfaceView();
+    private final Runnable delayedUpdate = new Runnable() {
+        @Override
+        public void run() {
+            delayedUpdatePending = false;
+            performUpdate();
+            if (!surfaceCapture.isInFlight()) {
+                // The update happened outside of a frame, so nothing would draw it otherwise.
+                // Surface captures invalidate when all the surfaces are delivered.
+                invalidateBlurView();
+            }
+        }
+    };
 
-            if (hasSurface) {
-                long nowTime = System.currentTimeMillis();
-                long cost = nowTime - lockTime;
-                Log.d(TAG, "onPreDraw: cost = " + cost + "ms");
-                if (cost > 60) {
-                    updateBlur();
-                } else {
-                    long delay = 60 - cost;
-                    handler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            Log.d(TAG, "onPreDraw: delay = " + delay + "ms");
-                            updateBlur();
-                        }
-                    }, delay);
-                }
-            } else {
-                updateBlur();
+    private final Runnable scrollSettled = new Runnable() {
+        @Override
+        public void run() {
+            if (scrollCache != null) {
+                scrollCache.invalidate();
             }
+            updateBlur();
+            invalidateBlurView();
+        }
+    };
 
-//            Log.d(TAG, "onPreDraw: end");
-            return true;
+    private final Runnable surfacePoll = new Runnable() {
+        @Override
+        public void run() {
+            requestUpdate(UpdateScheduler.FRAME_NANOS);
         }
     };
 
+    private final BlurMetrics metrics = new BlurMetrics();
+    private final BlurBitmapPool bitmapPool = BlurBitmapPool.getInstance();
+
+    private final SurfaceCapture surfaceCapture;
+    // The default policy follows whether the root contains surfaces, until a policy is set
+    private boolean updatePolicySet;
+    // The RenderNode holds a recording of the live hierarchy, instead of a blurred bitmap
+    private boolean nativeRecorded;
+
+    private final SurfaceCapture.Listener surfaceListener = new SurfaceCapture.Listener() {
+        @Override
+        public void onSurfacesCaptured() {
+            if (initialized && blurEnabled
+                    && surfaceCapture.isCapturedFor(frameWidth(), frameHeight(), captureMargin)
+                    && !deferIfBlurInFlight()) {
+                long captureStart = System.nanoTime();
+                captureHierarchy();
+                surfaceCapture.draw(getCaptureCanvas());
+                blurCapturedFrame(captureStart);
+                invalidateBlurView();
+            }
+            surfacePoll.run();
+        }
+
+        @Override
+        public void onSurfacesChanged() {
+            // Called while an update reads the surfaces, that update already captures the new ones
+            if (!updatePolicySet) {
+                scheduler.setPolicy(surfaceCapture.hasSurfaces() ? DEFAULT_SURFACE_POLICY : UpdatePolicy.everyFrame());
+            }
+        }
+    };
+
+    private final UpdateScheduler scheduler;
+    private final BlurViewVisibility visibility;
+    private final SelfInvalidation selfInvalidation = new SelfInvalidation();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
     private boolean blurEnabled = true;
+    // The window is hidden, nothing is captured until it's shown again
+    private boolean paused;
+    // The buffers were released while paused, and are allocated again on resume
+    private boolean trimmed;
+    // Snapshot mode blurs only on request, and keeps only the blurred bitmap in between, see captureOnce()
+    private boolean snapshotMode;
+    // Overrides the scale factor picked from the radius in snapshot mode, if positive
+    private float snapshotScaleFactor;
+    private boolean lowPrecision;
+    private boolean autoUpdate;
     private boolean initialized;
+    private boolean delayedUpdatePending;
+
+    // Content change detection captures into a separate buffer,
+    // so an unchanged frame doesn't overwrite the last blurred result
+    private boolean contentChangeDetection;
+    private Bitmap captureBitmap;
+    private BlurViewCanvas captureCanvas;
+    private int[] capturePixels;
+    private long lastSignature;
+    private boolean hasSignature;
+    // Whether the blurred frame of lastSignature is in the result cache already
+    private boolean resultCached;
+    private final BlurResultCache resultCache = BlurResultCache.getInstance();
+    // Identifies the algorithm and the bitmap config in the result cache
+    private String resultCacheAlgorithm;
+
+    // Async blur captures into the back buffer and blurs it on the worker,
+    // while the front buffer (internalBitmap) is drawn. They are swapped on the main thread
+    // when the blur is finished, so the bitmap being drawn is never the one being blurred.
+    private boolean asyncBlur;
+    @Nullable
+    private BlurWorker blurWorker;
+    private Bitmap backBitmap;
+    private BlurViewCanvas backCanvas;
+    private boolean hasBlurredFrame;
+    private boolean updateRequestedWhileBlurring;
+    private long asyncCaptureNanos;
+
+    private final BlurWorker.Callback blurWorkerCallback = new BlurWorker.Callback() {
+        @Override
+        public void onBlurFinished(@NonNull Bitmap bitmap, long blurNanos) {
+            if (bitmap == backBitmap) {
+                swapBuffers();
+                metrics.onBlurUpdatedWithDurations(asyncCaptureNanos, blurNanos);
+                // Its pre-draw doesn't start another blur, so static content is blurred once and the worker goes idle
+                invalidateBlurView();
+            } else {
+                // The buffers were reallocated in the meantime, and the result is stale
+                bitmapPool.release(bitmap);
+            }
+            if (updateRequestedWhileBlurring) {
+                updateRequestedWhileBlurring = false;
+                if (snapshotMode) {
+                    // The snapshot was requested while the blur was in flight
+                    refresh();
+                } else {
+                    requestUpdate(0);
+                }
+            }
+        }
+    };
 
     @Nullable
-    private Drawable frameClearDrawable;
+    private ScrollBlurCache scrollCache;
 
-    private SurfaceView surfaceView;
+    private final BlurMemoryTrimmer.Client trimClient = new BlurMemoryTrimmer.Client() {
+        @Override
+        public long trimMemory() {
+            return trimIfPaused();
+        }
+    };
+
+    @Nullable
+    private Drawable frameClearDrawable;
 
     /**
      * @param blurView  View which will draw it's blurred underlying content
@@ -111,227 +243,609 @@ public final class PreDrawBlurController implements BlurController {
             // noinspection NewApi
             ((RenderEffectBlur) algorithm).setContext(blurView.getContext());
         }
+        this.scaleFactor = SizeScaler.scaleFactorFor(blurRadius, algorithm.scaleFactor());
 
         int measuredWidth = blurView.getMeasuredWidth();
         int measuredHeight = blurView.getMeasuredHeight();
 
-        surfaceView = findSurfaceView(rootView);
+        // Created first, reading the surfaces below notifies surfaceListener
+        scheduler = new UpdateScheduler(UpdatePolicy.everyFrame());
+        surfaceCapture = new SurfaceCapture(rootView, blurView, metrics, surfaceListener);
+        if (hasSurfaces()) {
+            scheduler.setPolicy(DEFAULT_SURFACE_POLICY);
+        }
+        BlurMemoryTrimmer.getInstance().register(blurView.getContext(), trimClient);
+        visibility = new BlurViewVisibility(blurView);
+
+        init(measuredWidth, measuredHeight);
+    }
 
-        if (hasSurfaceView()) {
-            startLooper();
+    private boolean hasSurfaces() {
+        return surfaceCapture.hasSurfaces();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    void init(int measuredWidth, int measuredHeight) {
+        if (!snapshotMode) {
+            setBlurAutoUpdate(true);
+        }
+        SizeScaler sizeScaler = new SizeScaler(scaleFactor);
+        if (sizeScaler.isZeroSized(measuredWidth, measuredHeight)) {
+            // Will be initialized later when the View reports a size change
+            blurView.setWillNotDraw(true);
+            return;
         }
 
-        Log.d(TAG, "PreDrawBlurController: measuredWidth = " + measuredWidth + ", measuredHeight = " + measuredHeight);
+        blurView.setWillNotDraw(false);
+        if (paused) {
+            // Nothing is captured while the window is hidden, setPaused(false) allocates the buffers
+            trimmed = true;
+            return;
+        }
+        allocateBuffers(sizeScaler, measuredWidth, measuredHeight);
+        initialized = true;
+        trimmed = false;
+        // Usually it's not needed, because `onPreDraw` updates the blur anyway.
+        // But it handles cases when the PreDraw listener is attached to a different Window, for example
+        // when the BlurView is in a Dialog window, but the root is in the Activity.
+        // Previously it was done in `draw`, but it was causing potential side effects and Jetpack Compose crashes
+        updateBlur();
+    }
 
-        init(measuredWidth, measuredHeight);
+    /**
+     * Handles a size change of an initialized BlurView without a full reinit,
+     * which would otherwise happen on every frame of an animated resize.
+     * <p>
+     * While the new size fits into the buffers, only the drawn part of them changes,
+     * so the bitmaps, RenderScript allocations and RenderNode are all reused.
+     * Only the frame, the BlurView with its margins, is captured and blurred, so the unused part costs only memory.
+     * When the BlurView outgrows them, they are reallocated with some headroom for the next frames.
+     * They are also reallocated when the BlurView gets smaller, once they are 1.5 times larger than the frame.
+     */
+    private void resize(int width, int height) {
+        // Could have been hidden by a zero size in the meantime
+        blurView.setWillNotDraw(false);
+        int capacityWidth = internalBitmap.getWidth();
+        int capacityHeight = internalBitmap.getHeight();
+        int frameWidth = width + 2 * captureMargin;
+        int frameHeight = height + 2 * captureMargin;
+        long capacityArea = (long) capacityWidth * capacityHeight;
+        boolean fits = frameWidth <= capacityWidth && frameHeight <= capacityHeight;
+        // Unless the rounding of small frames makes the new buffers as large as the current ones
+        boolean tooLarge = 2 * capacityArea > 3L * frameWidth * frameHeight
+                && (long) withHeadroom(frameWidth) * withHeadroom(frameHeight) < capacityArea;
+        if (fits && !tooLarge) {
+            // The buffers already contain the content around the BlurView at the same scale,
+            // so the current blurred frame stays valid until the next update
+            contentWidth = width;
+            contentHeight = height;
+            updateContentScale();
+            return;
+        }
+        allocateBuffers(width, height, captureMargin, withHeadroom(frameWidth), withHeadroom(frameHeight));
+        updateBlur();
     }
 
+    /**
+     * Reallocates the buffers at the current size, after the scale factor, the margin or the bitmap config changed
+     */
+    private void reallocateBuffers() {
+        int measuredWidth = blurView.getMeasuredWidth();
+        int measuredHeight = blurView.getMeasuredHeight();
+        SizeScaler sizeScaler = new SizeScaler(scaleFactor);
+        if (sizeScaler.isZeroSized(measuredWidth, measuredHeight)) {
+            // The next size change reallocates them
+            return;
+        }
+        allocateBuffers(sizeScaler, measuredWidth, measuredHeight);
+        updateBlur();
+    }
 
-    private Handler handler = new Handler(Looper.getMainLooper());
-    private boolean looperStarted = false;
+    /**
+     * @return scale factor picked from the blur radius, or the one requested for the snapshot
+     */
+    private float pickScaleFactor() {
+        if (snapshotMode && snapshotScaleFactor > 0) {
+            float minScaleFactor = blurRadius * blurAlgorithm.scaleFactor() / MAX_SNAPSHOT_RADIUS;
+            return Math.max(1f, Math.max(snapshotScaleFactor, minScaleFactor));
+        }
+        return SizeScaler.scaleFactorFor(blurRadius, blurAlgorithm.scaleFactor());
+    }
 
+    /**
+     * @return blur radius in pixels of the internal bitmap, which keeps the on-screen radius
+     * independent of the scale factor
+     */
+    private float scaledBlurRadius() {
+        return SizeScaler.scaleRadius(blurRadius, blurAlgorithm.scaleFactor(), scaleFactor);
+    }
 
-    private void startLooper() {
-        looperStarted = true;
+    /**
+     * Keeps the scale between the BlurView and the buffers for the captures and draws,
+     * it changes only together with the size of either of them
+     */
+    private void updateContentScale() {
+        // https://github.com/Dimezis/BlurView/issues/128
+        contentScaleX = (float) blurView.getWidth() / contentWidth;
+        contentScaleY = (float) blurView.getHeight() / contentHeight;
+    }
 
-//        blurView.postInvalidate();
+    /**
+     * 12.5% per side, about 1.27 times the area, so the new buffers stay below the 1.5x area that shrinks them
+     */
+    private static int withHeadroom(int size) {
+        return SizeScaler.roundSize(size + size / 8);
+    }
 
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
+    /**
+     * @return downscaled width of the BlurView with the margins, the part of the buffers that is captured and blurred
+     */
+    private int frameWidth() {
+        return contentWidth + 2 * captureMargin;
+    }
 
-                Log.d(TAG, "startLooper: run , looperStarted=" + looperStarted);
+    private int frameHeight() {
+        return contentHeight + 2 * captureMargin;
+    }
 
-                if (!looperStarted) {
-                    return;
-                }
+    /**
+     * Allocates the buffers for the measured size of the BlurView, with a margin that fits the blur radius
+     */
+    private void allocateBuffers(SizeScaler sizeScaler, int measuredWidth, int measuredHeight) {
+        int margin = SizeScaler.captureMargin(scaledBlurRadius());
+        SizeScaler.Size bitmapSize = sizeScaler.scale(measuredWidth, measuredHeight, margin);
+        allocateBuffers(bitmapSize.width, bitmapSize.height, margin,
+                bitmapSize.width + 2 * margin, bitmapSize.height + 2 * margin);
+    }
 
+    /**
+     * @param width          downscaled size of the BlurView
+     * @param margin         downscaled pixels captured on each side of the BlurView
+     * @param capacityWidth  size of the buffers, at least the size of the BlurView with the margins
+     */
+    private void allocateBuffers(int width, int height, int margin, int capacityWidth, int capacityHeight) {
+        releaseInternalBitmap();
+        internalBitmap = acquireBitmap(capacityWidth, capacityHeight);
+        internalCanvas = new BlurViewCanvas(internalBitmap);
+        contentWidth = width;
+        contentHeight = height;
+        captureMargin = margin;
+        updateContentScale();
+        resultCacheAlgorithm = blurAlgorithm.getClass().getName() + '/' + getBitmapConfig();
+        setupCaptureBuffer();
+        setupBackBuffer();
+    }
 
-                updateBlur();
-                handler.postDelayed(this, 100);
-            }
-        }, 1000);
+    private Bitmap acquireBitmap(int width, int height) {
+        return bitmapPool.acquire(width, height, getBitmapConfig(), metrics);
+    }
 
+    private Bitmap.Config getBitmapConfig() {
+        return lowPrecision ? Bitmap.Config.RGB_565 : blurAlgorithm.getSupportedBitmapConfig();
     }
 
-    private boolean hasSurfaceView() {
-        return surfaceView != null;
+    /**
+     * Algorithms that read the bitmap through getPixels() or draw it, and don't depend on its exact format
+     */
+    private boolean supportsLowPrecision() {
+        return blurAlgorithm instanceof StackBlur
+                || blurAlgorithm instanceof GaussianBlur
+                || blurAlgorithm instanceof KawaseBlur
+                || blurAlgorithm instanceof RenderEffectBlur;
     }
 
-    private SurfaceView findSurfaceView(View rootView) {
-        if (rootView instanceof SurfaceView) {
-            return (SurfaceView) rootView;
+    private void releaseInternalBitmap() {
+        // Algorithms that don't modify the bitmap in place may return their own instances
+        if (blurAlgorithm.canModifyBitmap()) {
+            bitmapPool.release(internalBitmap);
         }
+        internalBitmap = null;
+    }
 
-        if (rootView instanceof ViewGroup) {
-            ViewGroup viewGroup = (ViewGroup) rootView;
-            for (int i = 0; i < viewGroup.getChildCount(); i++) {
-                View child = viewGroup.getChildAt(i);
-                if (child instanceof SurfaceView) {
-                    return (SurfaceView) child;
-                } else if (child instanceof ViewGroup) {
-                    SurfaceView surfaceView = findSurfaceView(child);
-                    if (surfaceView != null) {
-                        return surfaceView;
-                    }
-                }
-            }
+    private void releaseBackBuffer() {
+        // While the worker is blurring, the back buffer belongs to it.
+        // It's released when the stale result is delivered.
+        if (blurWorker == null || !blurWorker.isBusy()) {
+            bitmapPool.release(backBitmap);
         }
+        backBitmap = null;
+        backCanvas = null;
+    }
 
-        return null;
+    private void setupCaptureBuffer() {
+        hasSignature = false;
+        bitmapPool.release(captureBitmap);
+        if (!contentChangeDetection) {
+            captureBitmap = null;
+            captureCanvas = null;
+            capturePixels = null;
+            return;
+        }
+        int width = internalBitmap.getWidth();
+        int height = internalBitmap.getHeight();
+        captureBitmap = acquireBitmap(width, height);
+        captureCanvas = new BlurViewCanvas(captureBitmap);
+        capturePixels = new int[width * height];
     }
 
-    @SuppressWarnings("WeakerAccess")
-    void init(int measuredWidth, int measuredHeight) {
-        setBlurAutoUpdate(true);
-        SizeScaler sizeScaler = new SizeScaler(blurAlgorithm.scaleFactor());
-        if (sizeScaler.isZeroSized(measuredWidth, measuredHeight)) {
-            // Will be initialized later when the View reports a size change
-            blurView.setWillNotDraw(true);
+    private void setupBackBuffer() {
+        hasBlurredFrame = false;
+        releaseBackBuffer();
+        if (!asyncBlur) {
             return;
         }
+        int width = internalBitmap.getWidth();
+        int height = internalBitmap.getHeight();
+        backBitmap = acquireBitmap(width, height);
+        backCanvas = new BlurViewCanvas(backBitmap);
+    }
 
+    private void swapBuffers() {
+        Bitmap bitmap = internalBitmap;
+        internalBitmap = backBitmap;
+        backBitmap = bitmap;
+        BlurViewCanvas canvas = internalCanvas;
+        internalCanvas = backCanvas;
+        backCanvas = canvas;
+        hasBlurredFrame = true;
+    }
 
-        blurView.setWillNotDraw(false);
-        SizeScaler.Size bitmapSize = sizeScaler.scale(measuredWidth, measuredHeight);
-        Log.d(TAG, "init: bitmapSize = " + bitmapSize.width + ", " + bitmapSize.height);
-        internalBitmap = Bitmap.createBitmap(bitmapSize.width, bitmapSize.height, blurAlgorithm.getSupportedBitmapConfig());
-        internalCanvas = new BlurViewCanvas(internalBitmap);
-        initialized = true;
-        // Usually it's not needed, because `onPreDraw` updates the blur anyway.
-        // But it handles cases when the PreDraw listener is attached to a different Window, for example
-        // when the BlurView is in a Dialog window, but the root is in the Activity.
-        // Previously it was done in `draw`, but it was causing potential side effects and Jetpack Compose crashes
+    /**
+     * @return the bitmap that is blurred by the next update
+     */
+    private Bitmap getBlurTarget() {
+        return asyncBlur ? backBitmap : internalBitmap;
+    }
+
+    private Bitmap getCaptureBitmap() {
+        return contentChangeDetection ? captureBitmap : getBlurTarget();
+    }
+
+    private BlurViewCanvas getCaptureCanvas() {
+        if (contentChangeDetection) {
+            return captureCanvas;
+        }
+        return asyncBlur ? backCanvas : internalCanvas;
+    }
+
+    /**
+     * While the worker is blurring, the back buffer and the algorithm belong to it.
+     * The request is remembered and the update happens when the blur is finished.
+     */
+    private boolean deferIfBlurInFlight() {
+        if (blurWorker != null && blurWorker.isBusy()) {
+            updateRequestedWhileBlurring = true;
+            metrics.onUpdateSkipped(BlurMetricsListener.SKIP_BLUR_IN_FLIGHT);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Single entry point for all update requests, both from pre-draws and from the surface polling.
+     * Updates right away if the {@link UpdatePolicy} allows it, otherwise schedules one delayed update
+     * which covers all the requests that come in the meantime.
+     *
+     * @param minDelayNanos the earliest the update may happen
+     */
+    private void requestUpdate(long minDelayNanos) {
+        if (!autoUpdate || paused) {
+            return;
+        }
+        if (!visibility.isVisible()) {
+            // The frame where it shows up again still has a pre-draw, which updates it before it's drawn.
+            // The surface polling stops here too, and that pre-draw restarts it.
+            // The schedule restarts too, so that pre-draw isn't throttled.
+            scheduler.reset();
+            cancelDelayedUpdate();
+            metrics.onUpdateSkipped(BlurMetricsListener.SKIP_NOT_VISIBLE);
+            return;
+        }
+        long delay = Math.max(scheduler.delayUntilNextUpdate(System.nanoTime()), minDelayNanos);
+        if (delay <= 0) {
+            cancelDelayedUpdate();
+            performUpdate();
+        } else if (delayedUpdatePending) {
+            metrics.onUpdateSkipped(BlurMetricsListener.SKIP_COALESCED);
+        } else {
+            delayedUpdatePending = true;
+            handler.postDelayed(delayedUpdate, (delay + 999_999) / 1_000_000);
+        }
+    }
+
+    private void performUpdate() {
+        scheduler.onUpdateStarted(System.nanoTime());
         updateBlur();
     }
 
-    Paint paint = new Paint();
+    private void cancelDelayedUpdate() {
+        if (delayedUpdatePending) {
+            handler.removeCallbacks(delayedUpdate);
+            delayedUpdatePending = false;
+        }
+    }
 
-    {
-        paint.setStyle(Paint.Style.FILL);
-        paint.setColor(Color.RED);
-        paint.setAntiAlias(true);
-//        paint.setStrokeWidth(20);
-        paint.setTextSize(20);
-        paint.setFilterBitmap(true);
+    /**
+     * The pre-draw of the frame this causes is skipped, see {@link SelfInvalidation}
+     */
+    private void invalidateBlurView() {
+        selfInvalidation.mark();
+        blurView.invalidate();
     }
 
     @SuppressWarnings("WeakerAccess")
     void updateBlur() {
-
-
         if (!blurEnabled || !initialized) {
             return;
         }
+        if (deferIfBlurInFlight()) {
+            return;
+        }
+        if (isScrollCacheUsed()) {
+            updateScrollCache();
+            return;
+        }
+        updateSoftwareRendering();
+        if (isNativeCaptureUsed()) {
+            recordHierarchy();
+            return;
+        }
+        nativeRecorded = false;
 
-        boolean hasSurface = hasSurfaceView();
-
-        if (!hasSurface) {
-            if (frameClearDrawable == null) {
-                internalBitmap.eraseColor(Color.TRANSPARENT);
-            } else {
-                frameClearDrawable.draw(internalCanvas);
+        if (hasSurfaces()) {
+            if (surfaceCapture.isInFlight()) {
+                metrics.onUpdateSkipped(BlurMetricsListener.SKIP_CAPTURE_IN_FLIGHT);
+                return;
+            }
+            if (captureSurfaces()) {
+                // The hierarchy is captured once the surfaces are delivered, see surfaceListener
+                return;
             }
         }
 
-        if (hasSurface) {
-
-            int rvw = surfaceView.getWidth();
-            int rvh = surfaceView.getHeight();
+        long captureStart = System.nanoTime();
+        captureHierarchy();
+        blurCapturedFrame(captureStart);
+    }
 
-            Handler handlerPixelCopy = new Handler();
+    /**
+     * Draws the View hierarchy under the BlurView into the capture buffer
+     */
+    private void captureHierarchy() {
+        if (frameClearDrawable == null) {
+            getCaptureBitmap().eraseColor(Color.TRANSPARENT);
+        } else {
+            frameClearDrawable.draw(getCaptureCanvas());
+        }
+        BlurViewCanvas canvas = getCaptureCanvas();
+        canvas.save();
+        clipToBlurView(canvas);
+        setupInternalCanvasMatrix(canvas);
+        rootView.draw(canvas);
+        canvas.restore();
+    }
 
-            new Thread() {
-                @Override
-                public void run() {
+    /**
+     * Limits the capture to the BlurView and the margin the blur reads around it,
+     * the rest of the buffer is headroom for resizes. ViewGroups skip drawing the children
+     * that are outside of the clip, unless clipChildren is disabled, so Views away from the BlurView
+     * don't run their draw code at all.
+     */
+    private void clipToBlurView(Canvas canvas) {
+        canvas.clipRect(0, 0, frameWidth(), frameHeight());
+    }
 
+    /**
+     * RenderEffectBlur can record the hierarchy straight into its RenderNode. The capture then references
+     * the display lists of the Views instead of drawing them on a software Canvas,
+     * and the whole blur stays on the RenderThread without a bitmap upload.
+     * <p>
+     * A BlurView in the root would draw the RenderNode that records it, so the root must not contain any,
+     * for example when the BlurView is a sibling of the blurred content. Display lists are shared
+     * only within a window. Surfaces and content change detection need the pixels, so they use the bitmap.
+     * <p>
+     * The recording references the live display lists, so it keeps following the content on every frame.
+     * Snapshots and manual updates must stay frozen between updates, so they use the bitmap too.
+     */
+    private boolean isNativeCaptureUsed() {
+        return blurAlgorithm instanceof RenderEffectBlur
+                && !snapshotMode
+                && autoUpdate
+                && !isSoftwareRendered()
+                && rootView.getWindowId() == blurView.getWindowId()
+                && !contentChangeDetection
+                && !hasSurfaces()
+                && !surfaceCapture.rootHasBlurViews();
+    }
 
-//                    Log.d(TAG, "updateBlur: rvw = " + rvw + ", rvh = " + rvh);
+    /**
+     * Views with a software layer and Views in windows without hardware acceleration draw on a software Canvas
+     */
+    private boolean isSoftwareRendered() {
+        return !blurView.isHardwareAccelerated() || blurView.getLayerType() == View.LAYER_TYPE_SOFTWARE;
+    }
 
-                    Bitmap bitmap = Bitmap.createBitmap(rvw, rvh, Bitmap.Config.ARGB_8888);
-                    RectF destF = new RectF(0, 0, blurView.getWidth(), blurView.getHeight());
-                    boolean valid = surfaceView.getHolder().getSurface().isValid();
+    /**
+     * Lets RenderEffectBlur blur the bitmap during the update instead of recording its RenderNode,
+     * when the BlurView can't draw the RenderNode anyway. A detached View always looks software rendered.
+     */
+    private void updateSoftwareRendering() {
+        if (blurAlgorithm instanceof RenderEffectBlur && blurView.getWindowId() != null) {
+            // noinspection NewApi
+            ((RenderEffectBlur) blurAlgorithm).setSoftwareRendering(isSoftwareRendered());
+        }
+    }
 
-                    if (!valid) {
-                        return;
-                    }
+    private void recordHierarchy() {
+        long captureStart = System.nanoTime();
+        long metricsStart = metrics.now();
+        RenderEffectBlur algorithm = (RenderEffectBlur) blurAlgorithm;
+        // noinspection NewApi
+        Canvas canvas = algorithm.beginRecording(frameWidth(), frameHeight());
+        if (frameClearDrawable != null) {
+            frameClearDrawable.draw(canvas);
+        }
+        clipToBlurView(canvas);
+        setupInternalCanvasMatrix(canvas);
+        rootView.draw(canvas);
+        long blurStart = metrics.now();
+        // noinspection NewApi
+        algorithm.endRecording(scaledBlurRadius());
+        // Software draws, like screenshots, can't draw the recording. The bitmap is captured for them
+        // during the update, so they never blur during the draw and always show the current content.
+        captureHierarchy();
+        // noinspection NewApi
+        algorithm.updateSoftwareCopy(getCaptureBitmap(), frameWidth(), frameHeight());
+        nativeRecorded = true;
+        metrics.onBlurUpdated(metricsStart, blurStart);
+        scheduler.onUpdateFinished(System.nanoTime() - captureStart);
+    }
 
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                        long time = System.currentTimeMillis();
-                        Log.d(TAG, "PixelCopy: start");
-                        PixelCopy.request(surfaceView, bitmap, new PixelCopy.OnPixelCopyFinishedListener() {
-                            @Override
-                            public void onPixelCopyFinished(int copyResult) {
-                                if (copyResult == PixelCopy.SUCCESS) {
-                                    looperStarted = false;
+    /**
+     * Scroll caching takes over the capture and the blur, unless another mode already changes how they are done
+     */
+    private boolean isScrollCacheUsed() {
+        return scrollCache != null && !asyncBlur && !contentChangeDetection && !hasSurfaces();
+    }
 
-                                    Log.d(TAG, "onPixelCopyFinished: end , cost = " + (System.currentTimeMillis() - time) + "ms");
-                                    internalCanvas.save();
-                                    setupInternalCanvasMatrix();
-//                                    internalCanvas.drawColor(Color.RED);
-                                    internalCanvas.drawBitmap(bitmap, 0, 0, paint);
-//                                    internalCanvas.drawText("HAHAHAHA", 0, 400, paint);
-                                    internalCanvas.restore();
-                                    blurAndSave();
-                                    postLock();
+    private void updateScrollCache() {
+        long updateStart = System.nanoTime();
+        boolean incremental = scrollCache.update(contentWidth, contentHeight, scaledBlurRadius(),
+                getBitmapConfig(), frameClearDrawable);
+        handler.removeCallbacks(scrollSettled);
+        if (incremental) {
+            handler.postDelayed(scrollSettled, SCROLL_SETTLE_DELAY_MS);
+        }
+        scheduler.onUpdateFinished(System.nanoTime() - updateStart);
+    }
 
-                                    Log.d(TAG, "PixelCopy: end , success , cost=" + (System.currentTimeMillis() - time) + "ms");
-                                } else {
-                                    Log.e(TAG, "Failed to copyPixels: " + copyResult);
-                                }
-                            }
-                        }, handlerPixelCopy);
-                    }
-                }
-            }.start();
+    /**
+     * Requests copies of the surfaces under the BlurView, scaled to the internal bitmap.
+     * The results arrive in {@link #surfaceListener}, which also schedules the next poll.
+     *
+     * @return false if no surface is under the BlurView, then the frame has to be captured right away
+     */
+    private boolean captureSurfaces() {
+        return surfaceCapture.capture(frameWidth(), frameHeight(), captureMargin,
+                1 / contentScaleX, 1 / contentScaleY);
+    }
 
+    /**
+     * Blurs the captured frame, unless content change detection is enabled
+     * and the frame is the same as the last blurred one.
+     *
+     * @param captureStart {@link System#nanoTime()} before the capture started
+     */
+    private void blurCapturedFrame(long captureStart) {
+        if (contentChangeDetection && !hasCaptureChanged()) {
+            cacheBlurredFrame();
+            metrics.onUpdateSkipped(BlurMetricsListener.SKIP_UNCHANGED);
+        } else if (contentChangeDetection && restoreBlurredFrame()) {
+            metrics.onUpdateSkipped(BlurMetricsListener.SKIP_CACHED);
+        } else if (asyncBlur && hasBlurredFrame) {
+            // Only the capture counts towards the frame budget, the blur doesn't block the frame
+            asyncCaptureNanos = System.nanoTime() - captureStart;
+            blurWorker.blur(backBitmap, scaledBlurRadius(), frameWidth(), frameHeight());
         } else {
-
-            Log.d(TAG, "updateBlur start");
-
-            internalCanvas.save();
-            setupInternalCanvasMatrix();
-            rootView.draw(internalCanvas);
-            internalCanvas.restore();
-
+            long blurStart = metrics.now();
             blurAndSave();
-
-            Log.d(TAG, "updateBlur end");
-
+            metrics.onBlurUpdated(captureStart, blurStart);
+        }
+        scheduler.onUpdateFinished(System.nanoTime() - captureStart);
+        if (snapshotMode) {
+            releaseCaptureResources();
         }
-
     }
 
+    /**
+     * Keeps only the blurred bitmap after a snapshot, everything else is created again by the next one
+     */
+    private void releaseCaptureResources() {
+        if (blurWorker != null && !blurWorker.isBusy()) {
+            blurWorker.release(false);
+            blurWorker = null;
+        }
+        blurAlgorithm.releaseResources();
+        surfaceCapture.release();
+    }
 
-    private long lockTime = 0;
+    /**
+     * Compares the captured frame with the last blurred one, and moves it to the internal bitmap if it's different
+     */
+    private boolean hasCaptureChanged() {
+        int width = frameWidth();
+        int height = frameHeight();
+        captureBitmap.getPixels(capturePixels, 0, width, 0, 0, width, height);
+        long signature = ContentSignature.of(capturePixels, width * height);
+        if (hasSignature && signature == lastSignature) {
+            return false;
+        }
+        lastSignature = signature;
+        hasSignature = true;
+        resultCached = false;
+        getBlurTarget().setPixels(capturePixels, 0, width, 0, 0, width, height);
+        return true;
+    }
 
-    private void postLock() {
+    /**
+     * RenderEffectBlur blurs when its RenderNode is drawn, except on a software Canvas,
+     * so there's no blurred result to cache
+     */
+    private boolean canCacheResults() {
+        return !(blurAlgorithm instanceof RenderEffectBlur) && resultCache.getMaxBytes() > 0;
+    }
 
-        lockTime = System.currentTimeMillis();
-        // 30ms调用一次
+    /**
+     * Stores the front buffer once the content turns out to be static, which also guarantees
+     * that the front buffer is already the blurred frame of lastSignature, even with async blur
+     */
+    private void cacheBlurredFrame() {
+        if (resultCached || !canCacheResults()) {
+            return;
+        }
+        resultCached = true;
+        int width = frameWidth();
+        int height = frameHeight();
+        int[] pixels = new int[width * height];
+        internalBitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        resultCache.put(lastSignature, width, height, scaledBlurRadius(), resultCacheAlgorithm, pixels);
+    }
 
-        blurView.postInvalidate();
+    /**
+     * Copies the blurred frame of the new content to the front buffer, if it was blurred before
+     *
+     * @return false if the frame has to be blurred
+     */
+    private boolean restoreBlurredFrame() {
+        if (!canCacheResults()) {
+            return false;
+        }
+        int width = frameWidth();
+        int height = frameHeight();
+        int[] pixels = resultCache.get(lastSignature, width, height, scaledBlurRadius(), resultCacheAlgorithm);
+        if (pixels == null) {
+            return false;
+        }
+        internalBitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        resultCached = true;
+        return true;
     }
 
     /**
      * Set up matrix to draw starting from blurView's position
      */
-    private void setupInternalCanvasMatrix() {
+    private void setupInternalCanvasMatrix(Canvas canvas) {
         rootView.getLocationOnScreen(rootLocation);
         blurView.getLocationOnScreen(blurViewLocation);
 
         int left = blurViewLocation[0] - rootLocation[0];
         int top = blurViewLocation[1] - rootLocation[1];
 
-        // https://github.com/Dimezis/BlurView/issues/128
-        float scaleFactorH = (float) blurView.getHeight() / internalBitmap.getHeight();
-        float scaleFactorW = (float) blurView.getWidth() / internalBitmap.getWidth();
-
-        float scaledLeftPosition = -left / scaleFactorW;
-        float scaledTopPosition = -top / scaleFactorH;
+        float scaledLeftPosition = -left / contentScaleX;
+        float scaledTopPosition = -top / contentScaleY;
 
-        internalCanvas.translate(scaledLeftPosition, scaledTopPosition);
-        internalCanvas.scale(1 / scaleFactorW, 1 / scaleFactorH);
+        canvas.translate(captureMargin + scaledLeftPosition, captureMargin + scaledTopPosition);
+        canvas.scale(1 / contentScaleX, 1 / contentScaleY);
     }
 
     @Override
@@ -344,14 +858,18 @@ public final class PreDrawBlurController implements BlurController {
         if (canvas instanceof BlurViewCanvas) {
             return false;
         }
-
-        // https://github.com/Dimezis/BlurView/issues/128
-        float scaleFactorH = (float) blurView.getHeight() / internalBitmap.getHeight();
-        float scaleFactorW = (float) blurView.getWidth() / internalBitmap.getWidth();
+        selfInvalidation.onDraw();
 
         canvas.save();
-        canvas.scale(scaleFactorW, scaleFactorH);
-        blurAlgorithm.render(canvas, internalBitmap);
+        if (isScrollCacheUsed() && scrollCache.hasFrame()) {
+            scrollCache.draw(canvas);
+        } else {
+            // The margins and the headroom are cropped
+            canvas.clipRect(0, 0, blurView.getWidth(), blurView.getHeight());
+            canvas.scale(contentScaleX, contentScaleY);
+            canvas.translate(-captureMargin, -captureMargin);
+            blurAlgorithm.render(canvas, internalBitmap);
+        }
         canvas.restore();
 //        if (overlayColor != TRANSPARENT) {
 //            canvas.drawColor(overlayColor);
@@ -360,42 +878,81 @@ public final class PreDrawBlurController implements BlurController {
     }
 
     private void blurAndSave() {
-        long time = System.currentTimeMillis();
-        internalBitmap = blurAlgorithm.blur(internalBitmap, blurRadius);
+        if (asyncBlur) {
+            // The very first frame is blurred synchronously, so there's no empty frame after (re)initialization
+            blurAlgorithm.blurRegion(backBitmap, scaledBlurRadius(), frameWidth(), frameHeight());
+            swapBuffers();
+            return;
+        }
+        internalBitmap = blurAlgorithm.blurRegion(internalBitmap, scaledBlurRadius(), frameWidth(), frameHeight());
         if (!blurAlgorithm.canModifyBitmap()) {
             internalCanvas.setBitmap(internalBitmap);
         }
-        Log.d(TAG, "blurAndSave: cost = " + (System.currentTimeMillis() - time) + "ms");
     }
 
     @Override
     public void updateBlurViewSize() {
-
-
         int measuredWidth = blurView.getMeasuredWidth();
         int measuredHeight = blurView.getMeasuredHeight();
 
-        Log.d(TAG, "updateBlurViewSize: measuredWidth = " + measuredWidth + ", measuredHeight = " + measuredHeight);
-
-        init(measuredWidth, measuredHeight);
+        SizeScaler sizeScaler = new SizeScaler(scaleFactor);
+        if (!initialized || sizeScaler.isZeroSized(measuredWidth, measuredHeight)) {
+            init(measuredWidth, measuredHeight);
+            return;
+        }
+        SizeScaler.Size bitmapSize = sizeScaler.scale(measuredWidth, measuredHeight, captureMargin);
+        resize(bitmapSize.width, bitmapSize.height);
     }
 
     @Override
     public void destroy() {
-        setBlurAutoUpdate(false);
-        blurAlgorithm.destroy();
+        // First, so stopping the updates doesn't capture a last frame
         initialized = false;
+        BlurMemoryTrimmer.getInstance().unregister(trimClient);
+        setBlurAutoUpdate(false);
+        handler.removeCallbacks(surfacePoll);
+        handler.removeCallbacks(scrollSettled);
+        if (scrollCache != null) {
+            scrollCache.release();
+        }
+        surfaceCapture.destroy();
+        releaseBackBuffer();
+        if (blurWorker != null) {
+            blurWorker.release(true);
+            blurWorker = null;
+        } else {
+            blurAlgorithm.destroy();
+        }
+        bitmapPool.release(captureBitmap);
+        captureBitmap = null;
+        releaseInternalBitmap();
     }
 
     @Override
     public BlurViewFacade setBlurRadius(float radius) {
         this.blurRadius = radius;
+        hasSignature = false;
+        if (scrollCache != null) {
+            scrollCache.invalidate();
+        }
+        float newScaleFactor = pickScaleFactor();
+        boolean scaleFactorChanged = newScaleFactor != scaleFactor;
+        scaleFactor = newScaleFactor;
+        // A smaller radius keeps the larger margin, so animating the radius doesn't reallocate on every frame
+        boolean marginTooSmall = SizeScaler.captureMargin(scaledBlurRadius()) > captureMargin;
+        if (initialized && (scaleFactorChanged || marginTooSmall)) {
+            reallocateBuffers();
+        }
         return this;
     }
 
     @Override
     public BlurViewFacade setFrameClearDrawable(@Nullable Drawable frameClearDrawable) {
         this.frameClearDrawable = frameClearDrawable;
+        hasSignature = false;
+        if (scrollCache != null) {
+            scrollCache.invalidate();
+        }
         return this;
     }
 
@@ -408,15 +965,149 @@ public final class PreDrawBlurController implements BlurController {
     }
 
     public BlurViewFacade setBlurAutoUpdate(final boolean enabled) {
+        if (snapshotMode) {
+            // Also called by the BlurView when it's attached, which must not restart the updates
+            return this;
+        }
+        boolean wasEnabled = autoUpdate;
+        autoUpdate = enabled;
+        if (!enabled) {
+            cancelDelayedUpdate();
+            if (wasEnabled && nativeRecorded && initialized && blurEnabled) {
+                // The recording would keep following the content, the bitmap freezes the current frame
+                updateBlur();
+                blurView.invalidate();
+            }
+        } else if (!wasEnabled && initialized && hasSurfaces()) {
+            // Restart the surface polling, it stops when auto update is disabled
+            requestUpdate(0);
+        }
+        updatePreDrawListeners();
+        return this;
+    }
+
+    private void updatePreDrawListeners() {
         rootView.getViewTreeObserver().removeOnPreDrawListener(drawListener);
         blurView.getViewTreeObserver().removeOnPreDrawListener(drawListener);
-        if (enabled) {
+        if (autoUpdate && !paused) {
             rootView.getViewTreeObserver().addOnPreDrawListener(drawListener);
             // Track changes in the blurView window too, for example if it's in a bottom sheet dialog
             if (rootView.getWindowId() != blurView.getWindowId()) {
                 blurView.getViewTreeObserver().addOnPreDrawListener(drawListener);
             }
         }
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        if (this.paused == paused) {
+            return;
+        }
+        this.paused = paused;
+        if (paused) {
+            cancelDelayedUpdate();
+            handler.removeCallbacks(surfacePoll);
+            handler.removeCallbacks(scrollSettled);
+        } else {
+            // The content may have changed a lot while hidden, the first update isn't throttled
+            scheduler.reset();
+            if (trimmed) {
+                restoreBuffers();
+            } else if (hasSurfaces() && initialized) {
+                // Restart the surface polling
+                requestUpdate(0);
+            }
+        }
+        updatePreDrawListeners();
+    }
+
+    /**
+     * Releases everything except the configuration, if the window is hidden
+     *
+     * @return amount of released bytes that don't go back to the bitmap pool
+     */
+    private long trimIfPaused() {
+        if (!paused || !initialized || (blurWorker != null && blurWorker.isBusy())) {
+            // The algorithm belongs to the worker while it's blurring
+            return 0;
+        }
+        long freed = capturePixels != null ? 4L * capturePixels.length : 0;
+        if (blurWorker != null) {
+            blurWorker.release(false);
+            blurWorker = null;
+        }
+        if (scrollCache != null) {
+            scrollCache.release();
+        }
+        surfaceCapture.release();
+        releaseBackBuffer();
+        bitmapPool.release(captureBitmap);
+        captureBitmap = null;
+        captureCanvas = null;
+        capturePixels = null;
+        hasSignature = false;
+        releaseInternalBitmap();
+        internalCanvas = null;
+        blurAlgorithm.releaseResources();
+        initialized = false;
+        trimmed = true;
+        return freed;
+    }
+
+    /**
+     * Allocates the buffers released by {@link #trimIfPaused()} and updates the blur
+     */
+    private void restoreBuffers() {
+        trimmed = false;
+        if (asyncBlur && blurWorker == null) {
+            blurWorker = new BlurWorker(blurAlgorithm, blurWorkerCallback);
+        }
+        SizeScaler sizeScaler = new SizeScaler(scaleFactor);
+        if (sizeScaler.isZeroSized(blurView.getMeasuredWidth(), blurView.getMeasuredHeight())) {
+            // init() allocates them on the next size change
+            return;
+        }
+        allocateBuffers(sizeScaler, blurView.getMeasuredWidth(), blurView.getMeasuredHeight());
+        initialized = true;
+        updateBlur();
+    }
+
+    @Override
+    public BlurViewFacade captureOnce() {
+        return captureOnce(0f);
+    }
+
+    @Override
+    public BlurViewFacade captureOnce(float scaleFactor) {
+        setBlurAutoUpdate(false);
+        // The snapshot is blurred right away, without the modes that keep extra buffers between updates
+        setAsyncBlur(false);
+        setContentChangeDetection(false);
+        handler.removeCallbacks(scrollSettled);
+        if (scrollCache != null) {
+            scrollCache.release();
+            scrollCache = null;
+        }
+        snapshotMode = true;
+        snapshotScaleFactor = scaleFactor;
+        return refresh();
+    }
+
+    @Override
+    public BlurViewFacade refresh() {
+        float newScaleFactor = pickScaleFactor();
+        if (!initialized) {
+            // Taken by init() once the BlurView has a size
+            scaleFactor = newScaleFactor;
+            return this;
+        }
+        if (newScaleFactor != scaleFactor) {
+            scaleFactor = newScaleFactor;
+            reallocateBuffers();
+        } else {
+            updateBlur();
+        }
+        invalidateBlurView();
         return this;
     }
 
@@ -428,4 +1119,90 @@ public final class PreDrawBlurController implements BlurController {
         }
         return this;
     }
+
+    @Override
+    public BlurViewFacade setContentChangeDetection(boolean enabled) {
+        if (contentChangeDetection != enabled) {
+            contentChangeDetection = enabled;
+            if (initialized) {
+                setupCaptureBuffer();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setAsyncBlur(boolean enabled) {
+        if (enabled && (!blurAlgorithm.canModifyBitmap() || blurAlgorithm instanceof RenderEffectBlur)) {
+            // RenderEffectBlur blurs on the RenderThread already, and algorithms that swap bitmaps
+            // can't be double-buffered by the controller
+            Log.w(TAG, "Async blur is not supported by " + blurAlgorithm.getClass().getSimpleName());
+            return this;
+        }
+        if (asyncBlur == enabled) {
+            return this;
+        }
+        if (blurWorker != null && blurWorker.isBusy()) {
+            // The result of the blur in flight is dropped, the next update redoes it in the new mode
+            updateRequestedWhileBlurring = true;
+        }
+        asyncBlur = enabled;
+        if (enabled && blurWorker == null) {
+            blurWorker = new BlurWorker(blurAlgorithm, blurWorkerCallback);
+        }
+        if (initialized) {
+            setupBackBuffer();
+        }
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setLowPrecision(boolean enabled) {
+        if (enabled && !supportsLowPrecision()) {
+            Log.w(TAG, "Low precision is not supported by " + blurAlgorithm.getClass().getSimpleName());
+            return this;
+        }
+        if (lowPrecision != enabled) {
+            lowPrecision = enabled;
+            if (initialized) {
+                reallocateBuffers();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setScrollingView(@Nullable View scrollingView) {
+        if (scrollingView != null && (!blurAlgorithm.canModifyBitmap() || blurAlgorithm instanceof RenderEffectBlur)) {
+            // The strip is blurred in parts, which needs an algorithm that blurs any bitmap in place
+            Log.w(TAG, "Scroll caching is not supported by " + blurAlgorithm.getClass().getSimpleName());
+            return this;
+        }
+        handler.removeCallbacks(scrollSettled);
+        if (scrollCache != null) {
+            scrollCache.release();
+            scrollCache = null;
+        }
+        if (scrollingView != null) {
+            scrollCache = new ScrollBlurCache(rootView, blurView, scrollingView, blurAlgorithm, metrics);
+        }
+        if (initialized) {
+            updateBlur();
+            blurView.invalidate();
+        }
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setUpdatePolicy(@NonNull UpdatePolicy policy) {
+        scheduler.setPolicy(policy);
+        updatePolicySet = true;
+        return this;
+    }
+
+    @Override
+    public BlurViewFacade setBlurMetricsListener(@Nullable BlurMetricsListener listener) {
+        metrics.setListener(listener);
+        return this;
+    }
 }
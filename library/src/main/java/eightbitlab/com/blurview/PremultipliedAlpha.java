@@ -0,0 +1,67 @@
+package eightbitlab.com.blurview;
+
+/**
+ * Converts ARGB pixels between the straight alpha of {@link android.graphics.Bitmap#getPixels}
+ * and premultiplied alpha.
+ * <p>
+ * The CPU kernels blur premultiplied pixels, like RenderScript does. With straight alpha,
+ * the color of transparent pixels, usually black, would bleed into the opaque pixels next to them
+ * and darken the edges of translucent content and of the erased parts of the bitmap.
+ * Opaque pixels are returned as is, so fully opaque content costs a comparison per pixel.
+ */
+final class PremultipliedAlpha {
+
+    // 16 bit fixed point 255 / alpha, so unpremultiplying doesn't divide
+    private static final int[] RECIPROCALS = new int[256];
+
+    static {
+        for (int a = 1; a < 256; a++) {
+            RECIPROCALS[a] = ((255 << 16) + a / 2) / a;
+        }
+    }
+
+    private PremultipliedAlpha() {
+    }
+
+    static int premultiply(int pixel) {
+        int a = pixel >>> 24;
+        if (a == 255) {
+            return pixel;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        return a << 24
+                | multiply((pixel >> 16) & 0xff, a) << 16
+                | multiply((pixel >> 8) & 0xff, a) << 8
+                | multiply(pixel & 0xff, a);
+    }
+
+    static int unpremultiply(int pixel) {
+        int a = pixel >>> 24;
+        if (a == 255) {
+            return pixel;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        int reciprocal = RECIPROCALS[a];
+        return a << 24
+                | divide((pixel >> 16) & 0xff, reciprocal) << 16
+                | divide((pixel >> 8) & 0xff, reciprocal) << 8
+                | divide(pixel & 0xff, reciprocal);
+    }
+
+    /**
+     * @return round(color * alpha / 255)
+     */
+    private static int multiply(int color, int alpha) {
+        int product = color * alpha + 128;
+        return (product + (product >> 8)) >> 8;
+    }
+
+    private static int divide(int color, int reciprocal) {
+        // A blurred color can't exceed its alpha, except by the rounding of the kernels
+        return Math.min(255, (color * reciprocal + (1 << 15)) >> 16);
+    }
+}
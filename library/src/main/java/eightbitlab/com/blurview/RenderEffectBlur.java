@@ -3,6 +3,9 @@ package eightbitlab.com.blurview;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RecordingCanvas;
 import android.graphics.RenderEffect;
 import android.graphics.RenderNode;
 import android.graphics.Shader;
@@ -18,6 +21,15 @@ import androidx.annotation.RequiresApi;
  * Blur is performed on a separate thread - native RenderThread.
  * It doesn't block the Main thread, however it can still cause an FPS drop,
  * because it's just in a different part of the rendering pipeline.
+ * <p>
+ * The content is either a downscaled bitmap, or the View hierarchy recorded straight into the RenderNode,
+ * see {@link #beginRecording}.
+ * <p>
+ * A software Canvas can't draw the RenderNode, so the bitmap is blurred with a fallback algorithm instead,
+ * always during the update and never during the draw. If the BlurView is known to be drawn in software,
+ * see {@link #setSoftwareRendering}, the bitmap is blurred in place. Otherwise every update also blurs a copy
+ * of the bitmap, so an occasional software draw, like a screenshot, always draws the current content,
+ * see {@link #updateSoftwareCopy}.
  */
 @RequiresApi(Build.VERSION_CODES.S)
 public class RenderEffectBlur implements BlurAlgorithm {
@@ -26,39 +38,97 @@ public class RenderEffectBlur implements BlurAlgorithm {
 
     private int height, width;
     private float lastBlurRadius = 1f;
+    // The RenderNode keeps the effect between recordings, it's replaced only when the radius changes
+    @Nullable
+    private RenderEffect effect;
+    private float effectRadius;
 
     @Nullable
     public BlurAlgorithm fallbackAlgorithm;
     private Context context;
 
+    private boolean softwareRendering;
+    // Blurred copy of the last bitmap for software draws of a hardware accelerated View
+    @Nullable
+    private Bitmap softwareBitmap;
+    private Canvas softwareCanvas;
+    private final Paint softwarePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
     public RenderEffectBlur() {
     }
 
     @Override
     public Bitmap blur(@NonNull Bitmap bitmap, float blurRadius) {
-        lastBlurRadius = blurRadius;
+        return blurRegion(bitmap, blurRadius, bitmap.getWidth(), bitmap.getHeight());
+    }
 
-        if (bitmap.getHeight() != height || bitmap.getWidth() != width) {
-            height = bitmap.getHeight();
-            width = bitmap.getWidth();
-            node.setPosition(0, 0, width, height);
+    /**
+     * The RenderNode takes the size of the region, so the RenderEffect blurs nothing past it
+     */
+    @Override
+    public Bitmap blurRegion(@NonNull Bitmap bitmap, float blurRadius, int width, int height) {
+        if (softwareRendering) {
+            lastBlurRadius = blurRadius;
+            return getFallback(bitmap).blurRegion(bitmap, blurRadius, width, height);
         }
-        Canvas canvas = node.beginRecording();
+        Canvas canvas = beginRecording(width, height);
         canvas.drawBitmap(bitmap, 0, 0, null);
-        node.endRecording();
-        node.setRenderEffect(RenderEffect.createBlurEffect(blurRadius, blurRadius, Shader.TileMode.MIRROR));
+        endRecording(blurRadius);
+        updateSoftwareCopy(bitmap, width, height);
         // returning not blurred bitmap, because the rendering relies on the RenderNode
         return bitmap;
     }
 
+    /**
+     * Starts recording the content to blur straight into the RenderNode, instead of drawing a bitmap there.
+     * Views drawn on the returned canvas reference their own display lists, so nothing is rasterized
+     * on the main thread, and there's no bitmap to upload.
+     * The recorded Views must not draw this RenderNode themselves, that would make it draw itself.
+     *
+     * @param width size of the content, in the same units as a bitmap passed to {@link #blur}
+     * @return canvas to record the content with, must be finished with {@link #endRecording}
+     */
+    @NonNull
+    RecordingCanvas beginRecording(int width, int height) {
+        if (height != this.height || width != this.width) {
+            this.height = height;
+            this.width = width;
+            node.setPosition(0, 0, width, height);
+        }
+        return node.beginRecording();
+    }
+
+    void endRecording(float blurRadius) {
+        node.endRecording();
+        lastBlurRadius = blurRadius;
+        if (effect == null || effectRadius != blurRadius) {
+            effect = RenderEffect.createBlurEffect(blurRadius, blurRadius, Shader.TileMode.MIRROR);
+            effectRadius = blurRadius;
+            node.setRenderEffect(effect);
+        }
+    }
+
     @Override
     public void destroy() {
         node.discardDisplayList();
+        node.setRenderEffect(null);
+        effect = null;
+        releaseSoftwareBitmap();
         if (fallbackAlgorithm != null) {
             fallbackAlgorithm.destroy();
         }
     }
 
+    /**
+     * The RenderNode and the software copy are kept, they're needed to draw the blurred frame
+     */
+    @Override
+    public void releaseResources() {
+        if (fallbackAlgorithm != null) {
+            fallbackAlgorithm.releaseResources();
+        }
+    }
+
     @Override
     public boolean canModifyBitmap() {
         return true;
@@ -77,15 +147,75 @@ public class RenderEffectBlur implements BlurAlgorithm {
 
     @Override
     public void render(@NonNull Canvas canvas, @NonNull Bitmap bitmap) {
-        if (canvas.isHardwareAccelerated()) {
+        if (softwareRendering) {
+            // Already blurred during the update
+            canvas.drawBitmap(bitmap, 0f, 0f, softwarePaint);
+        } else if (canvas.isHardwareAccelerated()) {
             canvas.drawRenderNode(node);
-        } else {
-            if (fallbackAlgorithm == null) {
-                fallbackAlgorithm = new RenderScriptBlur(context);
-            }
-            fallbackAlgorithm.blur(bitmap, lastBlurRadius);
-            fallbackAlgorithm.render(canvas, bitmap);
+        } else if (softwareBitmap != null) {
+            // Blurred together with the last recording
+            canvas.drawBitmap(softwareBitmap, 0f, 0f, softwarePaint);
+        }
+    }
+
+    /**
+     * Sets whether the View is drawn on a software Canvas, like a View with a software layer
+     * or in a window without hardware acceleration. The bitmap is then blurred by the fallback algorithm
+     * in {@link #blur}, and drawn as is. Must be set before the blur.
+     */
+    void setSoftwareRendering(boolean softwareRendering) {
+        if (this.softwareRendering == softwareRendering) {
+            return;
+        }
+        this.softwareRendering = softwareRendering;
+        if (softwareRendering) {
+            node.discardDisplayList();
+            // The bitmap itself is blurred and drawn from now on
+            releaseSoftwareBitmap();
+        }
+    }
+
+    /**
+     * Blurs a copy of the bitmap for the software draws, so they never blur during the draw.
+     * Called by {@link #blur}, and must follow every {@link #endRecording} of a hierarchy,
+     * otherwise a software draw shows an outdated frame. Must not be called during a draw.
+     * The bitmap is kept intact, it's the content of the next update if nothing changes.
+     *
+     * @param bitmap the same content as the last recording
+     * @param width  size of the part of the bitmap with the content, see {@link #blurRegion}
+     */
+    void updateSoftwareCopy(@NonNull Bitmap bitmap, int width, int height) {
+        int bitmapWidth = bitmap.getWidth();
+        int bitmapHeight = bitmap.getHeight();
+        if (softwareBitmap == null || softwareBitmap.getWidth() != bitmapWidth
+                || softwareBitmap.getHeight() != bitmapHeight || softwareBitmap.getConfig() != bitmap.getConfig()) {
+            BlurBitmapPool.getInstance().release(softwareBitmap);
+            softwareBitmap = BlurBitmapPool.getInstance().acquire(bitmapWidth, bitmapHeight, bitmap.getConfig(), null);
+            softwareCanvas = new Canvas(softwareBitmap);
+        }
+        softwareBitmap.eraseColor(Color.TRANSPARENT);
+        softwareCanvas.drawBitmap(bitmap, 0, 0, null);
+        getFallback(softwareBitmap).blurRegion(softwareBitmap, lastBlurRadius, width, height);
+    }
+
+    private void releaseSoftwareBitmap() {
+        BlurBitmapPool.getInstance().release(softwareBitmap);
+        softwareBitmap = null;
+        softwareCanvas = null;
+    }
+
+    @NonNull
+    private BlurAlgorithm getFallback(Bitmap bitmap) {
+        // RenderScript works only with ARGB_8888, the bitmap is RGB_565 in the low precision mode
+        boolean canUseRenderScript = bitmap.getConfig() == Bitmap.Config.ARGB_8888;
+        if (fallbackAlgorithm instanceof RenderScriptBlur && !canUseRenderScript) {
+            fallbackAlgorithm.destroy();
+            fallbackAlgorithm = null;
+        }
+        if (fallbackAlgorithm == null) {
+            fallbackAlgorithm = canUseRenderScript ? new RenderScriptBlur(context) : new StackBlur();
         }
+        return fallbackAlgorithm;
     }
 
     void setContext(@NonNull Context context) {
@@ -10,6 +10,7 @@ import android.os.Build;
 import android.renderscript.Allocation;
 import android.renderscript.Element;
 import android.renderscript.RenderScript;
+import android.renderscript.Script;
 import android.renderscript.ScriptIntrinsicBlur;
 
 import androidx.annotation.NonNull;
@@ -25,9 +26,18 @@ import androidx.annotation.RequiresApi;
 @Deprecated
 public class RenderScriptBlur implements BlurAlgorithm {
     private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
-    private final RenderScript renderScript;
-    private final ScriptIntrinsicBlur blurScript;
+    private final Context context;
+    // Released by releaseResources(), and created again by the next blur
+    private RenderScript renderScript;
+    private ScriptIntrinsicBlur blurScript;
+    // Share the pixels of the last blurred bitmaps, so they're reused while the same bitmaps are blurred.
+    // Two of them, since async blur alternates between the front and the back buffer.
+    private final Allocation[] inAllocations = new Allocation[2];
+    private final Bitmap[] inBitmaps = new Bitmap[2];
+    // Slot replaced by the next new bitmap, the one that was blurred least recently
+    private int nextSlot;
     private Allocation outAllocation;
+    private final Script.LaunchOptions launchOptions = new Script.LaunchOptions();
 
     private int lastBitmapWidth = -1;
     private int lastBitmapHeight = -1;
@@ -37,6 +47,12 @@ public class RenderScriptBlur implements BlurAlgorithm {
      */
     @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR1)
     public RenderScriptBlur(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+        createScript();
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private void createScript() {
         renderScript = RenderScript.create(context);
         blurScript = ScriptIntrinsicBlur.create(renderScript, Element.U8_4(renderScript));
     }
@@ -53,10 +69,26 @@ public class RenderScriptBlur implements BlurAlgorithm {
     @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR1)
     @Override
     public Bitmap blur(@NonNull Bitmap bitmap, float blurRadius) {
-        //Allocation will use the same backing array of pixels as bitmap if created with USAGE_SHARED flag
-        Allocation inAllocation = Allocation.createFromBitmap(renderScript, bitmap);
+        return blurRegion(bitmap, blurRadius, bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    /**
+     * The allocations keep the size of the bitmap, so they're reused while the region changes.
+     * From API 24 the script computes only the region, below that it blurs the whole bitmap.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Override
+    public Bitmap blurRegion(@NonNull Bitmap bitmap, float blurRadius, int width, int height) {
+        if (renderScript == null) {
+            createScript();
+        }
+        boolean sameSize = canReuseAllocation(bitmap);
+        if (!sameSize) {
+            releaseInAllocations();
+        }
+        Allocation inAllocation = getInAllocation(bitmap);
 
-        if (!canReuseAllocation(bitmap)) {
+        if (!sameSize) {
             if (outAllocation != null) {
                 outAllocation.destroy();
             }
@@ -68,20 +100,75 @@ public class RenderScriptBlur implements BlurAlgorithm {
         blurScript.setRadius(blurRadius);
         blurScript.setInput(inAllocation);
         //do not use inAllocation in forEach. it will cause visual artifacts on blurred Bitmap
-        blurScript.forEach(outAllocation);
+        boolean wholeBitmap = width >= bitmap.getWidth() && height >= bitmap.getHeight();
+        if (wholeBitmap || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            blurScript.forEach(outAllocation);
+        } else {
+            launchOptions.setX(0, width).setY(0, height);
+            blurScript.forEach(outAllocation, launchOptions);
+        }
         outAllocation.copyTo(bitmap);
-
-        inAllocation.destroy();
         return bitmap;
     }
 
+    /**
+     * @return allocation that shares the pixels of the bitmap, and is in sync with it
+     */
+    private Allocation getInAllocation(Bitmap bitmap) {
+        for (int i = 0; i < inBitmaps.length; i++) {
+            if (inBitmaps[i] == bitmap) {
+                // Only syncs what was drawn on the bitmap since the last blur, the memory is shared
+                inAllocations[i].copyFrom(bitmap);
+                nextSlot = 1 - i;
+                return inAllocations[i];
+            }
+        }
+        int slot = nextSlot;
+        if (inAllocations[slot] != null) {
+            inAllocations[slot].destroy();
+        }
+        //Allocation will use the same backing array of pixels as bitmap if created with USAGE_SHARED flag
+        inAllocations[slot] = Allocation.createFromBitmap(renderScript, bitmap);
+        inBitmaps[slot] = bitmap;
+        nextSlot = 1 - slot;
+        return inAllocations[slot];
+    }
+
+    private void releaseInAllocations() {
+        for (int i = 0; i < inAllocations.length; i++) {
+            if (inAllocations[i] != null) {
+                inAllocations[i].destroy();
+                inAllocations[i] = null;
+            }
+            inBitmaps[i] = null;
+        }
+        nextSlot = 0;
+    }
+
     @Override
     public final void destroy() {
-        blurScript.destroy();
-        renderScript.destroy();
+        releaseResources();
+    }
+
+    /**
+     * Destroys the RenderScript context, which holds native memory and a driver thread
+     */
+    @Override
+    public void releaseResources() {
+        if (renderScript == null) {
+            return;
+        }
+        releaseInAllocations();
         if (outAllocation != null) {
             outAllocation.destroy();
+            outAllocation = null;
         }
+        blurScript.destroy();
+        renderScript.destroy();
+        blurScript = null;
+        renderScript = null;
+        lastBitmapWidth = -1;
+        lastBitmapHeight = -1;
     }
 
     @Override
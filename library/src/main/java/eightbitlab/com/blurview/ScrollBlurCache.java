@@ -0,0 +1,306 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Keeps a blurred strip of the content that is taller than the BlurView, for content that mostly scrolls vertically.
+ * <p>
+ * The movement of the content is tracked through one of the children of the scrolling View.
+ * While the BlurView stays inside the strip, a scroll only moves the strip when it's drawn, without blurring anything.
+ * When the BlurView gets close to an edge of the strip, the strip is moved by a fixed step,
+ * and only the newly exposed band is captured and blurred, together with enough rows around it
+ * to blur the rows near the band edge correctly. So the cost per frame is proportional to the scroll distance,
+ * not to the size of the BlurView.
+ * <p>
+ * The strip is a ring buffer: moving it changes the row where it starts, and the pixels stay where they are.
+ * It's also wider than the BlurView by the blur radius on both sides, like the main capture buffer,
+ * so the left and right edges are blurred with the content next to them. The extra columns are cropped when drawn.
+ * <p>
+ * Everything else than scrolling, like a horizontal move or a frame without any movement,
+ * causes a full capture of the strip.
+ * All methods must be called on the main thread.
+ */
+final class ScrollBlurCache {
+
+    // Moving the strip by less than that would blur the extra rows around the band too often
+    private static final int MIN_STEP = 16;
+
+    private final View rootView;
+    private final View blurView;
+    private final View scrollingView;
+    private final BlurAlgorithm algorithm;
+    private final BlurMetrics metrics;
+    private final BlurBitmapPool bitmapPool = BlurBitmapPool.getInstance();
+
+    private final int[] rootLocation = new int[2];
+    private final int[] location = new int[2];
+
+    @Nullable
+    private View anchor;
+    private int anchorX;
+    private int anchorY;
+
+    private Bitmap strip;
+    private BlurViewCanvas stripCanvas;
+    private Bitmap band;
+    private BlurViewCanvas bandCanvas;
+    private int[] bandPixels;
+    private Bitmap.Config config;
+    // Width of the strip, with the radius of extra columns on both sides
+    private int width;
+    private int height;
+    private int contentHeight;
+    // Radius and step are in rows of the strip
+    private int radius;
+    private int step;
+    // Physical row of the first logical row of the strip
+    private int head;
+
+    // Position of the first logical row of the strip, relative to the root, in strip pixels
+    private float originX;
+    private float originY;
+    private float scaleX;
+    private float scaleY;
+    // Position of the strip relative to the BlurView, in BlurView pixels
+    private float offsetX;
+    private float offsetY;
+    private boolean hasFrame;
+
+    private final Rect srcRect = new Rect();
+    private final Rect dstRect = new Rect();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    ScrollBlurCache(@NonNull View rootView, @NonNull View blurView, @NonNull View scrollingView,
+                    @NonNull BlurAlgorithm algorithm, @NonNull BlurMetrics metrics) {
+        this.rootView = rootView;
+        this.blurView = blurView;
+        this.scrollingView = scrollingView;
+        this.algorithm = algorithm;
+        this.metrics = metrics;
+    }
+
+    boolean hasFrame() {
+        return hasFrame;
+    }
+
+    /**
+     * The next update captures the whole strip
+     */
+    void invalidate() {
+        hasFrame = false;
+    }
+
+    /**
+     * @param contentWidth  downscaled size of the BlurView
+     * @param radius        blur radius in downscaled pixels
+     * @return true if only a part of the strip was updated, or nothing at all,
+     * so the content outside of the tracked scroll may be stale
+     */
+    boolean update(int contentWidth, int contentHeight, float radius, @NonNull Bitmap.Config config,
+                   @Nullable Drawable frameClearDrawable) {
+        rootView.getLocationOnScreen(rootLocation);
+        blurView.getLocationOnScreen(location);
+        int left = location[0] - rootLocation[0];
+        int top = location[1] - rootLocation[1];
+        float newScaleX = (float) contentWidth / blurView.getWidth();
+        float newScaleY = (float) contentHeight / blurView.getHeight();
+
+        boolean reallocated = ensureBuffers(contentWidth, contentHeight, (int) Math.ceil(radius), config);
+        boolean incremental = hasFrame && !reallocated
+                && newScaleX == scaleX && newScaleY == scaleY
+                && left * scaleX - this.radius == originX
+                && scrollBy(top, radius, frameClearDrawable);
+        if (!incremental) {
+            scaleX = newScaleX;
+            scaleY = newScaleY;
+            captureStrip(left, top, radius, frameClearDrawable);
+        }
+        pickAnchor();
+
+        float newOffsetX = originX / scaleX - left;
+        float newOffsetY = originY / scaleY - top;
+        if (newOffsetX != offsetX || newOffsetY != offsetY) {
+            offsetX = newOffsetX;
+            offsetY = newOffsetY;
+            // The position of the strip is recorded in the display list of the BlurView
+            blurView.invalidate();
+        }
+        return incremental;
+    }
+
+    /**
+     * Moves the strip along with the content
+     *
+     * @return false if the movement can't be tracked, or the BlurView left the strip
+     */
+    private boolean scrollBy(int top, float radius, @Nullable Drawable frameClearDrawable) {
+        if (anchor == null || (anchor != scrollingView && anchor.getParent() != scrollingView)) {
+            return false;
+        }
+        anchor.getLocationOnScreen(location);
+        int dx = location[0] - rootLocation[0] - anchorX;
+        int dy = location[1] - rootLocation[1] - anchorY;
+        if (dx != 0 || dy == 0) {
+            // Not a vertical scroll, something else has changed
+            return false;
+        }
+        originY -= dy * scaleY;
+
+        // Rows of the strip that are blurred with enough content around them
+        float viewRow = top * scaleY - originY;
+        if (viewRow >= radius && viewRow + contentHeight <= height - radius) {
+            return true;
+        }
+        int shift = viewRow < radius ? -step : step;
+        viewRow -= shift;
+        if (viewRow < radius || viewRow + contentHeight > height - radius) {
+            // Scrolled too far at once
+            return false;
+        }
+        shiftStrip(shift, radius, frameClearDrawable);
+        return true;
+    }
+
+    /**
+     * @return true if the buffers were reallocated
+     */
+    private boolean ensureBuffers(int contentWidth, int contentHeight, int radius, Bitmap.Config config) {
+        int step = Math.max(MIN_STEP, contentHeight / 4);
+        // The BlurView starts in the middle, and can move by one step in both directions,
+        // plus a row for the fractional part of the position
+        int height = contentHeight + 2 * (radius + step + 1);
+        int width = contentWidth + 2 * radius;
+        if (strip != null && width == this.width && height == this.height
+                && radius == this.radius && config == this.config) {
+            return false;
+        }
+        release();
+        this.width = width;
+        this.height = height;
+        this.contentHeight = contentHeight;
+        this.radius = radius;
+        this.step = step;
+        this.config = config;
+        strip = bitmapPool.acquire(width, height, config, metrics);
+        stripCanvas = new BlurViewCanvas(strip);
+        int bandHeight = step + 2 * radius;
+        band = bitmapPool.acquire(width, bandHeight, config, metrics);
+        bandCanvas = new BlurViewCanvas(band);
+        bandPixels = new int[width * (step + radius)];
+        return true;
+    }
+
+    private void captureStrip(int left, int top, float radius, @Nullable Drawable frameClearDrawable) {
+        long captureStart = metrics.now();
+        head = 0;
+        originX = left * scaleX - this.radius;
+        originY = top * scaleY - (height - contentHeight) / 2f;
+        capture(stripCanvas, strip, originY, frameClearDrawable);
+
+        long blurStart = metrics.now();
+        algorithm.blur(strip, radius);
+        metrics.onBlurUpdated(captureStart, blurStart);
+        hasFrame = true;
+    }
+
+    /**
+     * Moves the strip by the given amount of rows, and blurs the newly exposed rows
+     * together with the rows that were previously blurred next to the edge of the strip
+     */
+    private void shiftStrip(int shift, float radius, @Nullable Drawable frameClearDrawable) {
+        long captureStart = metrics.now();
+        originY += shift;
+        head = ((head + shift) % height + height) % height;
+
+        // The band has the radius of extra rows on both sides, only the outer one is not written back
+        int bandStart = shift > 0 ? height - step - 2 * this.radius : 0;
+        capture(bandCanvas, band, originY + bandStart, frameClearDrawable);
+
+        long blurStart = metrics.now();
+        algorithm.blur(band, radius);
+        int bandRow = shift > 0 ? this.radius : 0;
+        int rows = step + this.radius;
+        band.getPixels(bandPixels, 0, width, 0, bandRow, width, rows);
+        writeRows(bandStart + bandRow, rows);
+        metrics.onBlurUpdated(captureStart, blurStart);
+    }
+
+    /**
+     * Draws the root View, starting from the given row of the strip
+     */
+    private void capture(BlurViewCanvas canvas, Bitmap bitmap, float fromRow, @Nullable Drawable frameClearDrawable) {
+        if (frameClearDrawable == null) {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        } else {
+            frameClearDrawable.draw(canvas);
+        }
+        canvas.save();
+        canvas.translate(-originX, -fromRow);
+        canvas.scale(scaleX, scaleY);
+        rootView.draw(canvas);
+        canvas.restore();
+    }
+
+    private void writeRows(int logicalRow, int rows) {
+        int physicalRow = (head + logicalRow) % height;
+        int firstRows = Math.min(rows, height - physicalRow);
+        strip.setPixels(bandPixels, 0, width, 0, physicalRow, width, firstRows);
+        if (firstRows < rows) {
+            strip.setPixels(bandPixels, firstRows * width, width, 0, 0, width, rows - firstRows);
+        }
+    }
+
+    /**
+     * Any child works, as long as it stays attached. Picking one from the middle
+     * makes it less likely that it's recycled by the next frame.
+     */
+    private void pickAnchor() {
+        anchor = scrollingView;
+        if (scrollingView instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) scrollingView;
+            if (group.getChildCount() > 0) {
+                anchor = group.getChildAt(group.getChildCount() / 2);
+            }
+        }
+        anchor.getLocationOnScreen(location);
+        anchorX = location[0] - rootLocation[0];
+        anchorY = location[1] - rootLocation[1];
+    }
+
+    void draw(@NonNull Canvas canvas) {
+        canvas.clipRect(0, 0, blurView.getWidth(), blurView.getHeight());
+        canvas.translate(offsetX, offsetY);
+        canvas.scale(1 / scaleX, 1 / scaleY);
+        // The ring buffer is drawn in two parts, from the head to the bottom, then from the top to the head
+        int firstRows = height - head;
+        srcRect.set(0, head, width, height);
+        dstRect.set(0, 0, width, firstRows);
+        canvas.drawBitmap(strip, srcRect, dstRect, paint);
+        if (head > 0) {
+            srcRect.set(0, 0, width, head);
+            dstRect.set(0, firstRows, width, height);
+            canvas.drawBitmap(strip, srcRect, dstRect, paint);
+        }
+    }
+
+    void release() {
+        bitmapPool.release(strip);
+        bitmapPool.release(band);
+        strip = null;
+        stripCanvas = null;
+        band = null;
+        bandCanvas = null;
+        bandPixels = null;
+        hasFrame = false;
+    }
+}
@@ -0,0 +1,35 @@
+package eightbitlab.com.blurview;
+
+/**
+ * Tells apart the pre-draws caused by the BlurView invalidating itself to show a new blurred frame.
+ * Such a pre-draw must not request another update, otherwise the update, the invalidation and the next pre-draw
+ * form a loop that captures and blurs static content forever.
+ * <p>
+ * The mark is cleared when the BlurView draws, so it's never left set for a later frame,
+ * and by the skipped pre-draw itself, in case the BlurView isn't drawn in that frame.
+ * All methods must be called on the main thread.
+ */
+final class SelfInvalidation {
+
+    private boolean marked;
+
+    /**
+     * Must be called right before the BlurView invalidates itself
+     */
+    void mark() {
+        marked = true;
+    }
+
+    /**
+     * @return true if the pre-draw was caused by the BlurView invalidating itself, then it must be skipped
+     */
+    boolean consumePreDraw() {
+        boolean skip = marked;
+        marked = false;
+        return skip;
+    }
+
+    void onDraw() {
+        marked = false;
+    }
+}
@@ -10,6 +10,15 @@ public class SizeScaler {
     // This will help avoiding an extra bitmap allocation when passing the bitmap to RenderScript for blur.
     // Usually it's 16, but on Samsung devices it's 64 for some reason.
     private static final int ROUNDING_VALUE = 64;
+
+    // Blur radius in downscaled pixels the scale factor is picked for.
+    // Same as BlurController.DEFAULT_BLUR_RADIUS, so the default radius keeps the default scale factor.
+    // Not referenced directly to keep this class free of Android dependencies for the benchmarks.
+    private static final float TARGET_RADIUS = 16f;
+    private static final float MIN_SCALE_FACTOR = 2f;
+    // Few buckets, so small radius changes don't reallocate the bitmaps
+    private static final float[] SCALE_FACTORS = {1f, 2f, 3f, 4f, 6f, 8f, 12f, 16f};
+
     private final float scaleFactor;
 
     public SizeScaler(float scaleFactor) {
@@ -17,8 +26,19 @@ public class SizeScaler {
     }
 
     Size scale(int width, int height) {
+        return scale(width, height, 0);
+    }
+
+    /**
+     * Same as {@link #scale(int, int)}, but the width is rounded together with the margin on both sides,
+     * so the stride requirement applies to the bitmap with the margin, and not to the content alone.
+     *
+     * @param margin extra downscaled pixels on each side, see {@link #captureMargin(float)}
+     * @return size of the content, without the margin
+     */
+    Size scale(int width, int height, int margin) {
         int nonRoundedScaledWidth = downscaleSize(width);
-        int scaledWidth = roundSize(nonRoundedScaledWidth);
+        int scaledWidth = roundSize(nonRoundedScaledWidth + 2 * margin) - 2 * margin;
         //Only width has to be aligned to ROUNDING_VALUE
         float roundingScaleFactor = (float) width / scaledWidth;
         //Ceiling because rounding or flooring might leave empty space on the View's bottom
@@ -27,6 +47,45 @@ public class SizeScaler {
         return new Size(scaledWidth, scaledHeight, roundingScaleFactor);
     }
 
+    /**
+     * Picks the downscale factor from the blur radius, so the bitmap is as small as possible
+     * while the blur still covers enough of its pixels to not look blocky.
+     * Large radii get a smaller bitmap, small radii a larger one.
+     *
+     * @param blurRadius      blur radius in pixels of a bitmap downscaled by baseScaleFactor
+     * @param baseScaleFactor {@link BlurAlgorithm#scaleFactor()}
+     * @return one of the fixed scale factor buckets
+     */
+    static float scaleFactorFor(float blurRadius, float baseScaleFactor) {
+        float idealScaleFactor = Math.max(
+                blurRadius * baseScaleFactor / TARGET_RADIUS,
+                Math.min(baseScaleFactor, MIN_SCALE_FACTOR)
+        );
+        for (float scaleFactor : SCALE_FACTORS) {
+            if (scaleFactor >= idealScaleFactor) {
+                return scaleFactor;
+            }
+        }
+        return SCALE_FACTORS[SCALE_FACTORS.length - 1];
+    }
+
+    /**
+     * @return blur radius in pixels of a bitmap downscaled by scaleFactor,
+     * which gives the same on-screen radius as blurRadius with baseScaleFactor
+     */
+    static float scaleRadius(float blurRadius, float baseScaleFactor, float scaleFactor) {
+        return blurRadius * baseScaleFactor / scaleFactor;
+    }
+
+    /**
+     * @param scaledBlurRadius blur radius in downscaled pixels, see {@link #scaleRadius}
+     * @return amount of downscaled pixels captured on each side of the BlurView,
+     * so the blur reads the real content near the edges instead of transparent or mirrored pixels
+     */
+    static int captureMargin(float scaledBlurRadius) {
+        return (int) Math.ceil(scaledBlurRadius);
+    }
+
     boolean isZeroSized(int measuredWidth, int measuredHeight) {
         return downscaleSize(measuredHeight) == 0 || downscaleSize(measuredWidth) == 0;
     }
@@ -34,7 +93,7 @@ public class SizeScaler {
     /**
      * Rounds a value to the nearest divisible by {@link #ROUNDING_VALUE} to meet stride requirement
      */
-    private int roundSize(int value) {
+    static int roundSize(int value) {
         if (value % ROUNDING_VALUE == 0) {
             return value;
         }
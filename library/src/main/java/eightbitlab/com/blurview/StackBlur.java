@@ -0,0 +1,28 @@
+package eightbitlab.com.blurview;
+
+/**
+ * Blur implemented in pure Java, processed on the CPU by a shared pool of worker threads.
+ * Doesn't depend on RenderScript, so it behaves the same way on every device and API level.
+ * <p>
+ * Rows and columns are blurred in parallel bands, and all the buffers are reused
+ * between frames while the bitmap size stays the same.
+ * The blur radius is rounded to whole pixels and limited to 1..128.
+ */
+public class StackBlur extends CpuBlur {
+
+    public StackBlur() {
+        this(sharedExecutor());
+    }
+
+    /**
+     * @param threadCount amount of threads used for blurring, including the calling thread.
+     *                    The threads are owned by this instance and stopped by {@link #destroy()}
+     */
+    public StackBlur(int threadCount) {
+        this(new BandExecutor(threadCount));
+    }
+
+    private StackBlur(BandExecutor executor) {
+        super(executor, new StackBlurKernel(executor));
+    }
+}
@@ -0,0 +1,198 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Integer stack blur over ARGB int[] pixel buffers.
+ * Based on the Stack Blur algorithm by Mario Klingemann.
+ * <p>
+ * The horizontal pass is split into bands of rows and the vertical pass into bands of columns,
+ * which are processed in parallel by the {@link BandExecutor}.
+ * Scratch arrays are reused between calls, so blurring doesn't allocate once the buffer size is stable.
+ * Pixels are blurred with premultiplied alpha, see {@link PremultipliedAlpha}.
+ */
+final class StackBlurKernel implements CpuBlur.Kernel {
+
+    static final int MAX_RADIUS = 128;
+
+    // Keeps sum * multiplier within 32 bits for every radius up to MAX_RADIUS
+    private static final int SHIFT = 23;
+
+    private final BandExecutor executor;
+    private final int[][] stacks;
+    private int[] buffer = new int[0];
+
+    private int[] pixels;
+    private int width;
+    private int height;
+    private int radius;
+    private int multiplier;
+
+    private final BandExecutor.Task horizontalPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] stack = stacks[band];
+            for (int y = from; y < to; y++) {
+                int offset = y * width;
+                for (int i = offset; i < offset + width; i++) {
+                    pixels[i] = PremultipliedAlpha.premultiply(pixels[i]);
+                }
+                blurLine(pixels, offset, 1, buffer, offset, 1, width, stack);
+            }
+        }
+    };
+
+    private final BandExecutor.Task verticalPass = new BandExecutor.Task() {
+        @Override
+        public void run(int band, int from, int to) {
+            int[] stack = stacks[band];
+            int size = width * height;
+            for (int x = from; x < to; x++) {
+                blurLine(buffer, x, width, pixels, x, width, height, stack);
+                for (int i = x; i < size; i += width) {
+                    pixels[i] = PremultipliedAlpha.unpremultiply(pixels[i]);
+                }
+            }
+        }
+    };
+
+    StackBlurKernel(@NonNull BandExecutor executor) {
+        this.executor = executor;
+        this.stacks = new int[executor.getBandCount()][2 * MAX_RADIUS + 1];
+    }
+
+    /**
+     * Frees the scratch buffer, the next blur allocates it again
+     */
+    @Override
+    public void releaseBuffers() {
+        buffer = new int[0];
+    }
+
+    /**
+     * Blurs the pixels in place with the radius rounded to whole pixels
+     */
+    @Override
+    public void blur(@NonNull int[] pixels, int width, int height, float radius) {
+        blur(pixels, width, height, Math.round(radius));
+    }
+
+    /**
+     * Blurs the pixels in place
+     *
+     * @param pixels ARGB pixels, row by row
+     * @param radius blur radius in pixels, clamped to [0, {@link #MAX_RADIUS}]
+     */
+    void blur(@NonNull int[] pixels, int width, int height, int radius) {
+        radius = Math.min(radius, MAX_RADIUS);
+        if (radius < 1 || width <= 0 || height <= 0) {
+            return;
+        }
+        int size = width * height;
+        if (buffer.length < size) {
+            buffer = new int[size];
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.radius = radius;
+        int divSum = (radius + 1) * (radius + 1);
+        // Rounded up, so the maximum sum never maps to a value below 255
+        this.multiplier = ((1 << SHIFT) + divSum - 1) / divSum;
+
+        executor.execute(horizontalPass, height);
+        executor.execute(verticalPass, width);
+        this.pixels = null;
+    }
+
+    private void blurLine(int[] src, int srcOffset, int srcStep,
+                          int[] dst, int dstOffset, int dstStep,
+                          int length, int[] stack) {
+        final int r = radius;
+        final int div = 2 * r + 1;
+        final int last = length - 1;
+        final long mul = multiplier;
+
+        int sumA = 0, sumR = 0, sumG = 0, sumB = 0;
+        int inA = 0, inR = 0, inG = 0, inB = 0;
+        int outA = 0, outR = 0, outG = 0, outB = 0;
+
+        for (int i = -r; i <= r; i++) {
+            int index = Math.min(last, Math.max(i, 0));
+            int p = src[srcOffset + index * srcStep];
+            stack[i + r] = p;
+            int weight = r + 1 - Math.abs(i);
+            int a = p >>> 24;
+            int red = (p >> 16) & 0xff;
+            int green = (p >> 8) & 0xff;
+            int blue = p & 0xff;
+            sumA += a * weight;
+            sumR += red * weight;
+            sumG += green * weight;
+            sumB += blue * weight;
+            if (i <= 0) {
+                outA += a;
+                outR += red;
+                outG += green;
+                outB += blue;
+            } else {
+                inA += a;
+                inR += red;
+                inG += green;
+                inB += blue;
+            }
+        }
+
+        int stackPointer = r;
+        int di = dstOffset;
+        for (int x = 0; x < length; x++) {
+            dst[di] = (int) ((sumA * mul) >>> SHIFT) << 24
+                    | (int) ((sumR * mul) >>> SHIFT) << 16
+                    | (int) ((sumG * mul) >>> SHIFT) << 8
+                    | (int) ((sumB * mul) >>> SHIFT);
+            di += dstStep;
+
+            sumA -= outA;
+            sumR -= outR;
+            sumG -= outG;
+            sumB -= outB;
+
+            int stackStart = stackPointer - r + div;
+            if (stackStart >= div) {
+                stackStart -= div;
+            }
+            int p = stack[stackStart];
+            outA -= p >>> 24;
+            outR -= (p >> 16) & 0xff;
+            outG -= (p >> 8) & 0xff;
+            outB -= p & 0xff;
+
+            int next = Math.min(x + r + 1, last);
+            p = src[srcOffset + next * srcStep];
+            stack[stackStart] = p;
+            inA += p >>> 24;
+            inR += (p >> 16) & 0xff;
+            inG += (p >> 8) & 0xff;
+            inB += p & 0xff;
+
+            sumA += inA;
+            sumR += inR;
+            sumG += inG;
+            sumB += inB;
+
+            stackPointer++;
+            if (stackPointer == div) {
+                stackPointer = 0;
+            }
+            p = stack[stackPointer];
+            outA += p >>> 24;
+            outR += (p >> 16) & 0xff;
+            outG += (p >> 8) & 0xff;
+            outB += p & 0xff;
+            inA -= p >>> 24;
+            inR -= (p >> 16) & 0xff;
+            inG -= (p >> 8) & 0xff;
+            inB -= p & 0xff;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captures the SurfaceViews and TextureViews under the BlurView, whose content is missing
+ * from the software Canvas snapshot of the View hierarchy.
+ * <p>
+ * Only the surfaces that intersect the BlurView are captured, each with its own {@link CaptureSource},
+ * and the frame is complete once all of them are delivered. {@link #draw} then composes them
+ * with the captured hierarchy: SurfaceView content fills the holes the SurfaceViews punch in the hierarchy,
+ * TextureView content is drawn on top of it. Views over a TextureView are covered by it in the captured frame.
+ * <p>
+ * SurfaceViews are captured with PixelCopy, which is available from API 24. They're ignored below that.
+ * All methods must be called on the main thread.
+ */
+final class SurfaceCapture {
+
+    interface Listener {
+        /**
+         * Called when all the requested surfaces are delivered, successfully or not
+         */
+        void onSurfacesCaptured();
+
+        /**
+         * Called when surfaces are added to or removed from the root View.
+         * It's called while the surfaces are read, so it must not update the blur synchronously.
+         */
+        void onSurfacesChanged();
+    }
+
+    private final View blurView;
+    private final BlurMetrics metrics;
+    private final Listener listener;
+    private final SurfaceTracker tracker;
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private boolean entriesOutdated = true;
+    private int pendingCount;
+    private int capturedWidth;
+    private int capturedHeight;
+    private int capturedMargin;
+
+    private final int[] surfaceLocation = new int[2];
+    private final int[] blurViewLocation = new int[2];
+    private final Paint behindPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint overPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final SurfaceTracker.Listener trackerListener = new SurfaceTracker.Listener() {
+        @Override
+        public void onSurfacesChanged() {
+            entriesOutdated = true;
+            listener.onSurfacesChanged();
+        }
+    };
+
+    private final CaptureSource.Callback sourceCallback = new CaptureSource.Callback() {
+        @Override
+        public void onCaptureFinished(@NonNull CaptureSource source, @Nullable Bitmap bitmap) {
+            Entry entry = findEntry(source);
+            if (entry == null || pendingCount == 0) {
+                return;
+            }
+            entry.bitmap = bitmap;
+            pendingCount--;
+            if (pendingCount == 0) {
+                listener.onSurfacesCaptured();
+            }
+        }
+    };
+
+    SurfaceCapture(@NonNull View rootView, @NonNull View blurView, @NonNull BlurMetrics metrics,
+                   @NonNull Listener listener) {
+        this.blurView = blurView;
+        this.metrics = metrics;
+        this.listener = listener;
+        tracker = SurfaceTracker.acquire(rootView, trackerListener);
+        behindPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OVER));
+    }
+
+    boolean hasSurfaces() {
+        return tracker.hasSurfaces();
+    }
+
+    /**
+     * @return true if the root or any View under it is a BlurView
+     */
+    boolean rootHasBlurViews() {
+        return tracker.hasBlurViews();
+    }
+
+    boolean isInFlight() {
+        return pendingCount > 0;
+    }
+
+    /**
+     * @return true if the delivered surfaces were requested for a frame of this size and margin
+     */
+    boolean isCapturedFor(int width, int height, int margin) {
+        return capturedWidth == width && capturedHeight == height && capturedMargin == margin;
+    }
+
+    /**
+     * Requests the surfaces under the captured frame. {@link Listener#onSurfacesCaptured()} is called when all of them
+     * are delivered, which can happen before this method returns.
+     *
+     * @param width  size of the captured frame, in downscaled pixels
+     * @param margin downscaled pixels captured on each side of the BlurView, the frame starts that far from it
+     * @param scaleX ratio of the captured frame to the BlurView
+     * @return false if no surface is under the frame, then nothing was requested
+     */
+    boolean capture(int width, int height, int margin, float scaleX, float scaleY) {
+        if (isInFlight()) {
+            return true;
+        }
+        updateEntries();
+        capturedWidth = width;
+        capturedHeight = height;
+        capturedMargin = margin;
+        blurView.getLocationOnScreen(blurViewLocation);
+        // The whole frame is captured, including the margins and the headroom past the BlurView bounds
+        float frameLeft = blurViewLocation[0] - margin / scaleX;
+        float frameTop = blurViewLocation[1] - margin / scaleY;
+        float frameWidth = width / scaleX;
+        float frameHeight = height / scaleY;
+
+        // Counted first, since the results may arrive synchronously
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            entry.bitmap = null;
+            entry.requested = computeRects(entry, frameLeft, frameTop, frameWidth, frameHeight, scaleX, scaleY)
+                    && prepareSource(entry);
+            if (entry.requested) {
+                pendingCount++;
+            }
+        }
+        if (pendingCount == 0) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.requested) {
+                int bitmapWidth = Math.max(1, Math.round(entry.destRect.width()));
+                int bitmapHeight = Math.max(1, Math.round(entry.destRect.height()));
+                if (!entry.source.capture(entry.srcRect, bitmapWidth, bitmapHeight)) {
+                    sourceCallback.onCaptureFinished(entry.source, null);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draws the delivered surfaces over the captured hierarchy
+     *
+     * @param canvas canvas of the captured frame, in its own coordinates
+     */
+    void draw(@NonNull Canvas canvas) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.requested && entry.bitmap != null) {
+                Paint paint = entry.source.isBehindWindow() ? behindPaint : overPaint;
+                canvas.drawBitmap(entry.bitmap, null, entry.destRect, paint);
+            }
+        }
+    }
+
+    /**
+     * Releases the bitmaps and threads of the sources, they're created again by the next capture.
+     * Pending results are dropped.
+     */
+    void release() {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).release();
+        }
+        pendingCount = 0;
+    }
+
+    void destroy() {
+        release();
+        entries.clear();
+        tracker.release(trackerListener);
+    }
+
+    /**
+     * Matches the entries to the tracked surfaces, keeping the sources of the ones that are still there
+     */
+    private void updateEntries() {
+        // Rescans the root if it changed, which may mark the entries as outdated
+        List<View> surfaces = tracker.getSurfaces();
+        if (!entriesOutdated) {
+            return;
+        }
+        entriesOutdated = false;
+        ArrayList<Entry> kept = new ArrayList<>(surfaces.size());
+        for (int i = 0; i < surfaces.size(); i++) {
+            View surface = surfaces.get(i);
+            Entry entry = null;
+            for (int j = 0; j < entries.size(); j++) {
+                if (entries.get(j).view == surface) {
+                    entry = entries.remove(j);
+                    break;
+                }
+            }
+            kept.add(entry != null ? entry : new Entry(surface));
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).release();
+        }
+        entries.clear();
+        entries.addAll(kept);
+    }
+
+    /**
+     * Computes the surface region under the captured frame, and where it lands in the frame
+     *
+     * @return false if the surface isn't shown or doesn't overlap the frame
+     */
+    private boolean computeRects(Entry entry, float frameLeft, float frameTop, float frameWidth, float frameHeight,
+                                 float scaleX, float scaleY) {
+        View surface = entry.view;
+        if (!surface.isShown() || surface.getWidth() == 0 || surface.getHeight() == 0) {
+            return false;
+        }
+        surface.getLocationOnScreen(surfaceLocation);
+        // Frame position in the surface coordinates
+        float left = frameLeft - surfaceLocation[0];
+        float top = frameTop - surfaceLocation[1];
+
+        Rect srcRect = entry.srcRect;
+        srcRect.set(
+                (int) Math.floor(left),
+                (int) Math.floor(top),
+                (int) Math.ceil(left + frameWidth),
+                (int) Math.ceil(top + frameHeight)
+        );
+        if (!srcRect.intersect(0, 0, surface.getWidth(), surface.getHeight())) {
+            return false;
+        }
+        entry.destRect.set(
+                (srcRect.left - left) * scaleX,
+                (srcRect.top - top) * scaleY,
+                (srcRect.right - left) * scaleX,
+                (srcRect.bottom - top) * scaleY
+        );
+        return true;
+    }
+
+    /**
+     * Creates the source if needed
+     *
+     * @return false if the surface can't be captured now
+     */
+    private boolean prepareSource(Entry entry) {
+        if (entry.source == null) {
+            entry.source = createSource(entry.view);
+        }
+        return entry.source != null && entry.source.isReady();
+    }
+
+    @Nullable
+    private CaptureSource createSource(View surface) {
+        if (surface instanceof TextureView) {
+            return new TextureCaptureSource((TextureView) surface, metrics, sourceCallback);
+        }
+        if (surface instanceof SurfaceView && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            // noinspection NewApi
+            return new SurfaceCaptureSource((SurfaceView) surface, metrics, sourceCallback);
+        }
+        // PixelCopy is not available
+        return null;
+    }
+
+    @Nullable
+    private Entry findEntry(CaptureSource source) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).source == source) {
+                return entries.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        final View view;
+        final Rect srcRect = new Rect();
+        final RectF destRect = new RectF();
+        @Nullable
+        CaptureSource source;
+        @Nullable
+        Bitmap bitmap;
+        boolean requested;
+
+        Entry(View view) {
+            this.view = view;
+        }
+
+        void release() {
+            if (source != null) {
+                source.release();
+                source = null;
+            }
+            bitmap = null;
+            requested = false;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+import android.view.PixelCopy;
+import android.view.SurfaceView;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * Copies the part of a SurfaceView under the BlurView with PixelCopy.
+ * The results arrive asynchronously.
+ * <p>
+ * PixelCopy.request blocks the calling thread until the copy is done on most API levels,
+ * so the requests are issued from one long-lived thread instead of the main thread.
+ * The destination bitmap comes from the {@link BlurBitmapPool} and is reused while the requested size stays the same,
+ * and a new request is never issued while the previous one is pending.
+ * <p>
+ * All methods must be called on the main thread, results are delivered on the main thread too.
+ */
+@RequiresApi(Build.VERSION_CODES.N)
+final class SurfaceCaptureSource implements CaptureSource {
+
+    private static final String TAG = "SurfaceCaptureSource";
+
+    private final SurfaceView surfaceView;
+    private final Callback callback;
+    private final BlurMetrics metrics;
+    private final HandlerThread thread = new HandlerThread("BlurView-PixelCopy");
+    private final Handler copyHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Written on the main thread before posting requestTask
+    private final Rect srcRect = new Rect();
+    private Bitmap bitmap;
+    private long requestStart;
+    // Written on the copy thread before posting deliverTask
+    private int copyResult;
+
+    private boolean inFlight;
+    private boolean released;
+
+    private final PixelCopy.OnPixelCopyFinishedListener copyListener = new PixelCopy.OnPixelCopyFinishedListener() {
+        @Override
+        public void onPixelCopyFinished(int result) {
+            copyResult = result;
+            mainHandler.post(deliverTask);
+        }
+    };
+
+    private final Runnable requestTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                PixelCopy.request(surfaceView, srcRect, bitmap, copyListener, copyHandler);
+            } catch (IllegalArgumentException e) {
+                // Surface was released in the meantime
+                copyListener.onPixelCopyFinished(PixelCopy.ERROR_SOURCE_INVALID);
+            }
+        }
+    };
+
+    private final Runnable deliverTask = new Runnable() {
+        @Override
+        public void run() {
+            inFlight = false;
+            if (released) {
+                return;
+            }
+            metrics.onPixelCopyFinished(requestStart, copyResult);
+            if (copyResult != PixelCopy.SUCCESS) {
+                Log.e(TAG, "Failed to copyPixels: " + copyResult);
+            }
+            callback.onCaptureFinished(SurfaceCaptureSource.this, copyResult == PixelCopy.SUCCESS ? bitmap : null);
+        }
+    };
+
+    SurfaceCaptureSource(@NonNull SurfaceView surfaceView, @NonNull BlurMetrics metrics, @NonNull Callback callback) {
+        this.surfaceView = surfaceView;
+        this.metrics = metrics;
+        this.callback = callback;
+        thread.start();
+        copyHandler = new Handler(thread.getLooper());
+    }
+
+    @NonNull
+    @Override
+    public View getView() {
+        return surfaceView;
+    }
+
+    @Override
+    public boolean isReady() {
+        return surfaceView.getHolder().getSurface().isValid();
+    }
+
+    @Override
+    public boolean isInFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public boolean capture(@NonNull Rect srcRect, int width, int height) {
+        if (inFlight || released) {
+            return false;
+        }
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            BlurBitmapPool.getInstance().release(bitmap);
+            bitmap = BlurBitmapPool.getInstance().acquire(width, height, Bitmap.Config.ARGB_8888, metrics);
+        }
+        this.srcRect.set(srcRect);
+        inFlight = true;
+        requestStart = metrics.now();
+        copyHandler.post(requestTask);
+        return true;
+    }
+
+    /**
+     * SurfaceView content is on a separate layer behind the window, unless it's ordered on top,
+     * which can't be queried. That mode is rarely used for the content under a BlurView.
+     */
+    @Override
+    public boolean isBehindWindow() {
+        return true;
+    }
+
+    /**
+     * Stops the thread. Pending results are no longer delivered.
+     */
+    @Override
+    public void release() {
+        released = true;
+        mainHandler.removeCallbacks(deliverTask);
+        thread.quitSafely();
+        if (!inFlight) {
+            BlurBitmapPool.getInstance().release(bitmap);
+        }
+        bitmap = null;
+    }
+}
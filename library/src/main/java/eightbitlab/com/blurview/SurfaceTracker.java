@@ -0,0 +1,265 @@
+package eightbitlab.com.blurview;
+
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import androidx.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the list of SurfaceViews and TextureViews under a root View, and whether it contains BlurViews.
+ * <p>
+ * One tracker is shared by all the BlurViews with the same root, so a screen with many BlurViews,
+ * like a RecyclerView with blurred items, tracks the hierarchy once instead of once per BlurView.
+ * The hierarchy is walked once, when the tracker is created and after the root is attached to a window,
+ * and an {@link ViewGroup.OnHierarchyChangeListener} is set on every ViewGroup it visits.
+ * Afterwards only the added and removed children are walked, so scrolling a RecyclerView that recycles
+ * its children costs a walk of the recycled items, not of the whole hierarchy.
+ * Subtrees of BlurViews are skipped, they're never drawn into the captured frame.
+ * <p>
+ * A ViewGroup has a single OnHierarchyChangeListener, so the tracker replaces the ones set on the ViewGroups
+ * under the root, and a listener set later replaces the tracker's one. Changes under such a ViewGroup
+ * are only picked up by the walk after the next attach. The tracker never clears its listener,
+ * so it can't drop a listener set after it; the ones left on ViewGroups it no longer observes do nothing.
+ * <p>
+ * All methods must be called on the main thread.
+ */
+final class SurfaceTracker {
+
+    interface Listener {
+        /**
+         * Called when the list is read after a SurfaceView or a TextureView was added or removed.
+         * It's called from the getters, so listeners must not update synchronously.
+         */
+        void onSurfacesChanged();
+    }
+
+    private static final WeakHashMap<View, SurfaceTracker> trackers = new WeakHashMap<>();
+
+    // Weak, the tracker is the value of its own root in the map
+    private final WeakReference<View> rootViewRef;
+    private final ArrayList<View> surfaces = new ArrayList<>();
+    private final ArrayList<View> scannedSurfaces = new ArrayList<>();
+    private final HashSet<ViewGroup> observedGroups = new HashSet<>();
+    private final ArrayList<Listener> listeners = new ArrayList<>();
+    private int blurViewCount;
+    private boolean outdated = true;
+    private boolean changed;
+
+    private final ViewGroup.OnHierarchyChangeListener hierarchyListener = new ViewGroup.OnHierarchyChangeListener() {
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            // The whole hierarchy is walked anyway when outdated
+            if (outdated || !observedGroups.contains(parent)) {
+                return;
+            }
+            int surfaceCount = surfaces.size();
+            observe(child, surfaces);
+            if (surfaces.size() != surfaceCount) {
+                Collections.sort(surfaces, drawingOrder);
+                changed = true;
+            }
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            if (outdated || !observedGroups.contains(parent)) {
+                return;
+            }
+            if (unobserve(child)) {
+                changed = true;
+            }
+        }
+    };
+
+    private final View.OnAttachStateChangeListener attachListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            // Fallback for the ViewGroups whose listener was replaced while the tracker was observing them
+            outdated = true;
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+        }
+    };
+
+    // Depth first order of the children, which is the order the full walk collects them in
+    private final Comparator<View> drawingOrder = new Comparator<View>() {
+        private final ArrayList<View> firstPath = new ArrayList<>();
+        private final ArrayList<View> secondPath = new ArrayList<>();
+
+        @Override
+        public int compare(View first, View second) {
+            pathFromRoot(first, firstPath);
+            pathFromRoot(second, secondPath);
+            int depth = 0;
+            while (depth < firstPath.size() && depth < secondPath.size()
+                    && firstPath.get(depth) == secondPath.get(depth)) {
+                depth++;
+            }
+            if (depth == 0 || depth == firstPath.size() || depth == secondPath.size()) {
+                // Not under the same root, or one contains the other, which surfaces can't
+                return 0;
+            }
+            ViewGroup parent = (ViewGroup) firstPath.get(depth - 1);
+            return Integer.compare(parent.indexOfChild(firstPath.get(depth)), parent.indexOfChild(secondPath.get(depth)));
+        }
+    };
+
+    private SurfaceTracker(@NonNull View rootView) {
+        rootViewRef = new WeakReference<>(rootView);
+        rootView.addOnAttachStateChangeListener(attachListener);
+    }
+    /**
+     * Must be paired with {@link #release}
+     */
+    @NonNull
+    static SurfaceTracker acquire(@NonNull View rootView, @NonNull Listener listener) {
+        SurfaceTracker tracker = trackers.get(rootView);
+        if (tracker == null) {
+            tracker = new SurfaceTracker(rootView);
+            trackers.put(rootView, tracker);
+        }
+        tracker.listeners.add(listener);
+        return tracker;
+    }
+
+    void release(@NonNull Listener listener) {
+        listeners.remove(listener);
+        View rootView = rootViewRef.get();
+        if (!listeners.isEmpty() || rootView == null) {
+            return;
+        }
+        rootView.removeOnAttachStateChangeListener(attachListener);
+        observedGroups.clear();
+        trackers.remove(rootView);
+    }
+
+    /**
+     * @return SurfaceViews and TextureViews in drawing order, including the ones that aren't visible.
+     * Must not be modified.
+     */
+    @NonNull
+    List<View> getSurfaces() {
+        scanIfOutdated();
+        return surfaces;
+    }
+
+    boolean hasSurfaces() {
+        scanIfOutdated();
+        return !surfaces.isEmpty();
+    }
+
+    /**
+     * @return true if the root or any View under it is a BlurView
+     */
+    boolean hasBlurViews() {
+        scanIfOutdated();
+        return blurViewCount > 0;
+    }
+
+    private void scanIfOutdated() {
+        View rootView = rootViewRef.get();
+        if (rootView == null) {
+            return;
+        }
+        if (outdated) {
+            outdated = false;
+            if (scan(rootView)) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            changed = false;
+            // Listeners may release the tracker
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onSurfacesChanged();
+            }
+        }
+    }
+
+    /**
+     * Walks the whole hierarchy and observes all of its ViewGroups again
+     *
+     * @return true if the list of surfaces changed
+     */
+    private boolean scan(View rootView) {
+        observedGroups.clear();
+        scannedSurfaces.clear();
+        blurViewCount = 0;
+        observe(rootView, scannedSurfaces);
+        if (scannedSurfaces.equals(surfaces)) {
+            return false;
+        }
+        surfaces.clear();
+        surfaces.addAll(scannedSurfaces);
+        return true;
+    }
+
+    /**
+     * Adds the surfaces and counts the BlurViews of the subtree, and observes its ViewGroups
+     */
+    private void observe(View view, List<View> result) {
+        if (view instanceof SurfaceView || view instanceof TextureView) {
+            result.add(view);
+        } else if (view instanceof BlurView) {
+            blurViewCount++;
+        } else if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            viewGroup.setOnHierarchyChangeListener(hierarchyListener);
+            observedGroups.add(viewGroup);
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                observe(viewGroup.getChildAt(i), result);
+            }
+        }
+    }
+
+    /**
+     * Removes the surfaces and the BlurViews of a removed subtree, and stops observing its ViewGroups
+     *
+     * @return true if the list of surfaces changed
+     */
+    private boolean unobserve(View view) {
+        if (view instanceof SurfaceView || view instanceof TextureView) {
+            return surfaces.remove(view);
+        } else if (view instanceof BlurView) {
+            blurViewCount--;
+            return false;
+        } else if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            observedGroups.remove(viewGroup);
+            boolean removed = false;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                removed |= unobserve(viewGroup.getChildAt(i));
+            }
+            return removed;
+        }
+        return false;
+    }
+
+    private void pathFromRoot(View view, ArrayList<View> path) {
+        path.clear();
+        View rootView = rootViewRef.get();
+        View current = view;
+        while (current != null) {
+            path.add(current);
+            if (current == rootView) {
+                break;
+            }
+            ViewParent parent = current.getParent();
+            current = parent instanceof View ? (View) parent : null;
+        }
+        Collections.reverse(path);
+    }
+}
@@ -0,0 +1,112 @@
+package eightbitlab.com.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.view.TextureView;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Copies the part of a TextureView under the BlurView with {@link TextureView#getBitmap(Bitmap)}.
+ * <p>
+ * The whole texture is copied at the requested scale, since getBitmap can't copy a region,
+ * then the region is cut out of it. Both bitmaps come from the {@link BlurBitmapPool}
+ * and are reused while the requested size stays the same.
+ * The copy is synchronous, the result is delivered before {@link #capture} returns.
+ */
+final class TextureCaptureSource implements CaptureSource {
+
+    private final TextureView textureView;
+    private final Callback callback;
+    private final BlurMetrics metrics;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect scaledSrcRect = new Rect();
+    private final Rect destRect = new Rect();
+
+    private Bitmap textureBitmap;
+    private Bitmap bitmap;
+    private Canvas canvas;
+
+    TextureCaptureSource(@NonNull TextureView textureView, @NonNull BlurMetrics metrics, @NonNull Callback callback) {
+        this.textureView = textureView;
+        this.metrics = metrics;
+        this.callback = callback;
+    }
+
+    @NonNull
+    @Override
+    public View getView() {
+        return textureView;
+    }
+
+    @Override
+    public boolean isReady() {
+        return textureView.isAvailable();
+    }
+
+    @Override
+    public boolean isInFlight() {
+        return false;
+    }
+
+    @Override
+    public boolean capture(@NonNull Rect srcRect, int width, int height) {
+        float scaleX = (float) width / srcRect.width();
+        float scaleY = (float) height / srcRect.height();
+        int textureWidth = Math.max(1, Math.round(textureView.getWidth() * scaleX));
+        int textureHeight = Math.max(1, Math.round(textureView.getHeight() * scaleY));
+        textureBitmap = ensureSize(textureBitmap, textureWidth, textureHeight);
+        textureView.getBitmap(textureBitmap);
+
+        if (srcRect.width() == textureView.getWidth() && srcRect.height() == textureView.getHeight()
+                && textureWidth == width && textureHeight == height) {
+            // The whole texture is under the BlurView
+            callback.onCaptureFinished(this, textureBitmap);
+            return true;
+        }
+
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            bitmap = ensureSize(bitmap, width, height);
+            canvas = new Canvas(bitmap);
+        }
+        scaledSrcRect.set(
+                Math.round(srcRect.left * scaleX),
+                Math.round(srcRect.top * scaleY),
+                Math.round(srcRect.right * scaleX),
+                Math.round(srcRect.bottom * scaleY)
+        );
+        destRect.set(0, 0, width, height);
+        canvas.drawBitmap(textureBitmap, scaledSrcRect, destRect, paint);
+        callback.onCaptureFinished(this, bitmap);
+        return true;
+    }
+
+    private Bitmap ensureSize(Bitmap bitmap, int width, int height) {
+        if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height) {
+            return bitmap;
+        }
+        BlurBitmapPool.getInstance().release(bitmap);
+        // getBitmap(Bitmap) requires ARGB_8888
+        return BlurBitmapPool.getInstance().acquire(width, height, Bitmap.Config.ARGB_8888, metrics);
+    }
+
+    /**
+     * The texture is composed in place of the TextureView
+     */
+    @Override
+    public boolean isBehindWindow() {
+        return false;
+    }
+
+    @Override
+    public void release() {
+        BlurBitmapPool.getInstance().release(textureBitmap);
+        BlurBitmapPool.getInstance().release(bitmap);
+        textureBitmap = null;
+        bitmap = null;
+        canvas = null;
+    }
+}
@@ -0,0 +1,81 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Defines how often the blurred content may be updated.
+ * Update requests that come faster than the policy allows are coalesced into a single delayed update.
+ */
+public final class UpdatePolicy {
+
+    static final int MODE_EVERY_FRAME = 0;
+    static final int MODE_MAX_FPS = 1;
+    static final int MODE_ADAPTIVE = 2;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final UpdatePolicy EVERY_FRAME = new UpdatePolicy(MODE_EVERY_FRAME, 0, 0, 0);
+
+    final int mode;
+    final long minIntervalNanos;
+    final long maxIntervalNanos;
+    final long frameBudgetNanos;
+
+    private UpdatePolicy(int mode, long minIntervalNanos, long maxIntervalNanos, long frameBudgetNanos) {
+        this.mode = mode;
+        this.minIntervalNanos = minIntervalNanos;
+        this.maxIntervalNanos = maxIntervalNanos;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Updates the blur on every frame in which the view hierarchy changes
+     */
+    @NonNull
+    public static UpdatePolicy everyFrame() {
+        return EVERY_FRAME;
+    }
+
+    /**
+     * @param fps maximum amount of blur updates per second
+     */
+    @NonNull
+    public static UpdatePolicy maxFps(float fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("fps must be positive, was " + fps);
+        }
+        long interval = (long) (NANOS_PER_SECOND / fps);
+        return new UpdatePolicy(MODE_MAX_FPS, interval, interval, 0);
+    }
+
+    /**
+     * Lowers the update rate when blurring gets expensive, and raises it back when it gets cheap again.
+     * The rate is picked so the average blur cost per frame stays within the budget.
+     *
+     * @param frameBudgetMillis acceptable blur cost per frame, on average
+     * @param minFps            the update rate never goes below this value
+     */
+    @NonNull
+    public static UpdatePolicy adaptive(float frameBudgetMillis, float minFps) {
+        if (frameBudgetMillis <= 0) {
+            throw new IllegalArgumentException("frameBudgetMillis must be positive, was " + frameBudgetMillis);
+        }
+        if (minFps <= 0) {
+            throw new IllegalArgumentException("minFps must be positive, was " + minFps);
+        }
+        return new UpdatePolicy(MODE_ADAPTIVE, 0, (long) (NANOS_PER_SECOND / minFps), (long) (frameBudgetMillis * 1_000_000));
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        switch (mode) {
+            case MODE_MAX_FPS:
+                return "UpdatePolicy{maxFps, minIntervalNanos=" + minIntervalNanos + '}';
+            case MODE_ADAPTIVE:
+                return "UpdatePolicy{adaptive, frameBudgetNanos=" + frameBudgetNanos +
+                        ", maxIntervalNanos=" + maxIntervalNanos + '}';
+            default:
+                return "UpdatePolicy{everyFrame}";
+        }
+    }
+}
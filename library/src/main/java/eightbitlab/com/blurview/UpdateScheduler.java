@@ -0,0 +1,78 @@
+package eightbitlab.com.blurview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides when the next blur update may happen, according to the {@link UpdatePolicy}.
+ * Time is passed in explicitly, in {@link System#nanoTime()} units.
+ */
+final class UpdateScheduler {
+
+    static final long FRAME_NANOS = 16_666_667L;
+
+    @NonNull
+    private UpdatePolicy policy;
+    private long intervalNanos;
+    private long averageCostNanos;
+    private long lastUpdate;
+    private boolean hasUpdated;
+
+    UpdateScheduler(@NonNull UpdatePolicy policy) {
+        setPolicy(policy);
+    }
+
+    void setPolicy(@NonNull UpdatePolicy policy) {
+        this.policy = policy;
+        intervalNanos = policy.minIntervalNanos;
+        averageCostNanos = 0;
+    }
+
+    /**
+     * @return 0 if the update can happen right away, otherwise the delay until it's allowed
+     */
+    long delayUntilNextUpdate(long now) {
+        if (!hasUpdated) {
+            return 0;
+        }
+        long elapsed = now - lastUpdate;
+        return elapsed >= intervalNanos ? 0 : intervalNanos - elapsed;
+    }
+
+    /**
+     * @param now when the update started
+     */
+    void onUpdateStarted(long now) {
+        lastUpdate = now;
+        hasUpdated = true;
+    }
+
+    /**
+     * @param costNanos how long the capture and blur took
+     */
+    void onUpdateFinished(long costNanos) {
+        if (policy.mode != UpdatePolicy.MODE_ADAPTIVE) {
+            return;
+        }
+        // Exponential moving average, so a single slow frame doesn't halve the update rate
+        averageCostNanos = averageCostNanos == 0 ? costNanos : (averageCostNanos * 3 + costNanos) / 4;
+        // Updating every N frames spreads the cost of one update over N frames
+        long frames = (averageCostNanos + policy.frameBudgetNanos - 1) / policy.frameBudgetNanos;
+        if (frames <= 1) {
+            intervalNanos = 0;
+        } else {
+            // Half a frame less, so the frame timing jitter doesn't push the update to the next frame
+            intervalNanos = Math.min(frames * FRAME_NANOS - FRAME_NANOS / 2, policy.maxIntervalNanos);
+        }
+    }
+
+    long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Forgets the last update, so the next one can happen right away
+     */
+    void reset() {
+        hasUpdated = false;
+    }
+}
@@ -0,0 +1,65 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BandExecutorTest {
+    private final BandExecutor executor = new BandExecutor(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void every_index_is_processed_once() {
+        int[] counts = new int[1000];
+
+        executor.execute((band, from, to) -> {
+            for (int i = from; i < to; i++) {
+                counts[i]++;
+            }
+        }, counts.length);
+
+        for (int count : counts) {
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    void calls_from_several_threads_dont_mix_up() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[3];
+        for (int t = 0; t < threads.length; t++) {
+            final int value = t + 1;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int iteration = 0; iteration < 200; iteration++) {
+                        int[] values = new int[997];
+                        executor.execute((band, from, to) -> {
+                            for (int i = from; i < to; i++) {
+                                values[i] += value;
+                            }
+                        }, values.length);
+                        for (int v : values) {
+                            assertEquals(value, v);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,109 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlurMetricsTest {
+
+    private final BlurMetrics metrics = new BlurMetrics();
+    private final FakeListener listener = new FakeListener();
+
+    @Test
+    void does_not_measure_without_listener() {
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.now());
+
+        metrics.onBlurUpdated(metrics.now(), metrics.now());
+        metrics.onUpdateSkipped(BlurMetricsListener.SKIP_COALESCED);
+        metrics.setListener(listener);
+
+        assertEquals(0, listener.updates);
+        assertEquals(0, listener.skipped);
+    }
+
+    @Test
+    void reports_capture_and_blur_durations() throws InterruptedException {
+        metrics.setListener(listener);
+        assertTrue(metrics.isEnabled());
+
+        long captureStart = metrics.now();
+        Thread.sleep(2);
+        long blurStart = metrics.now();
+        Thread.sleep(2);
+        metrics.onBlurUpdated(captureStart, blurStart);
+
+        assertEquals(1, listener.updates);
+        assertTrue(listener.captureNanos >= 2_000_000);
+        assertTrue(listener.blurNanos >= 2_000_000);
+    }
+
+    @Test
+    void ignores_update_started_before_listener_was_set() {
+        long captureStart = metrics.now();
+        metrics.setListener(listener);
+
+        metrics.onBlurUpdated(captureStart, metrics.now());
+        metrics.onPixelCopyFinished(captureStart, 0);
+
+        assertEquals(0, listener.updates);
+        assertEquals(0, listener.pixelCopies);
+    }
+
+    @Test
+    void counts_skipped_updates_pixel_copies_and_allocations() {
+        metrics.setListener(listener);
+
+        metrics.onUpdateSkipped(BlurMetricsListener.SKIP_COALESCED);
+        metrics.onUpdateSkipped(BlurMetricsListener.SKIP_COALESCED);
+        metrics.onPixelCopyFinished(metrics.now(), 1);
+        metrics.onBitmapAllocated(64, 32, 64 * 32 * 4);
+
+        assertEquals(2, listener.skipped);
+        assertEquals(1, listener.pixelCopies);
+        assertEquals(1, listener.lastCopyResult);
+        assertEquals(1, listener.allocations);
+        assertEquals(64 * 32 * 4, listener.allocatedBytes);
+
+        metrics.setListener(null);
+        metrics.onBitmapAllocated(64, 32, 64 * 32 * 4);
+        assertEquals(1, listener.allocations);
+    }
+
+    private static class FakeListener implements BlurMetricsListener {
+        int updates;
+        long captureNanos;
+        long blurNanos;
+        int pixelCopies;
+        int lastCopyResult;
+        int skipped;
+        int allocations;
+        long allocatedBytes;
+
+        @Override
+        public void onBlurUpdated(long captureNanos, long blurNanos) {
+            updates++;
+            this.captureNanos += captureNanos;
+            this.blurNanos += blurNanos;
+        }
+
+        @Override
+        public void onPixelCopyFinished(long latencyNanos, int copyResult) {
+            pixelCopies++;
+            lastCopyResult = copyResult;
+        }
+
+        @Override
+        public void onUpdateSkipped(int reason) {
+            skipped++;
+        }
+
+        @Override
+        public void onBitmapAllocated(int width, int height, int byteCount) {
+            allocations++;
+            allocatedBytes += byteCount;
+        }
+    }
+}
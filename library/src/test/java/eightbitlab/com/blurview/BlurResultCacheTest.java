@@ -0,0 +1,82 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BlurResultCacheTest {
+
+    private static final String ALGORITHM = "StackBlur/ARGB_8888";
+    // 4 frames of 4x4 pixels
+    private final BlurResultCache cache = new BlurResultCache(4 * 64);
+
+    @Test
+    void returns_stored_frame() {
+        int[] pixels = new int[16];
+        cache.put(1L, 4, 4, 8f, ALGORITHM, pixels);
+
+        assertSame(pixels, cache.get(1L, 4, 4, 8f, ALGORITHM));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(64, cache.getSizeBytes());
+    }
+
+    @Test
+    void frame_is_identified_by_all_the_parameters() {
+        cache.put(1L, 4, 4, 8f, ALGORITHM, new int[16]);
+
+        assertNull(cache.get(2L, 4, 4, 8f, ALGORITHM));
+        assertNull(cache.get(1L, 2, 8, 8f, ALGORITHM));
+        assertNull(cache.get(1L, 4, 4, 8.5f, ALGORITHM));
+        assertNull(cache.get(1L, 4, 4, 8f, "StackBlur/RGB_565"));
+        assertNotNull(cache.get(1L, 4, 4, 8f, new String(ALGORITHM)));
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void drops_least_recently_used_frames() {
+        for (long signature = 0; signature < 4; signature++) {
+            cache.put(signature, 4, 4, 8f, ALGORITHM, new int[16]);
+        }
+        cache.get(0L, 4, 4, 8f, ALGORITHM);
+
+        cache.put(4L, 4, 4, 8f, ALGORITHM, new int[16]);
+
+        assertNotNull(cache.get(0L, 4, 4, 8f, ALGORITHM));
+        assertNull(cache.get(1L, 4, 4, 8f, ALGORITHM));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(4 * 64, cache.getSizeBytes());
+    }
+
+    @Test
+    void replacing_a_frame_keeps_the_size() {
+        cache.put(1L, 4, 4, 8f, ALGORITHM, new int[16]);
+        cache.put(1L, 4, 4, 8f, ALGORITHM, new int[16]);
+
+        assertEquals(64, cache.getSizeBytes());
+    }
+
+    @Test
+    void does_not_store_frames_over_the_limit() {
+        cache.put(1L, 16, 16, 8f, ALGORITHM, new int[256]);
+
+        assertNull(cache.get(1L, 16, 16, 8f, ALGORITHM));
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    void lowering_the_limit_drops_frames() {
+        cache.put(1L, 4, 4, 8f, ALGORITHM, new int[16]);
+        cache.put(2L, 4, 4, 8f, ALGORITHM, new int[16]);
+
+        cache.setMaxBytes(64);
+
+        assertNull(cache.get(1L, 4, 4, 8f, ALGORITHM));
+        assertNotNull(cache.get(2L, 4, 4, 8f, ALGORITHM));
+
+        cache.clear();
+        assertEquals(0, cache.getSizeBytes());
+    }
+}
@@ -0,0 +1,46 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ContentSignatureTest {
+
+    @Test
+    void equal_pixels_have_equal_signatures() {
+        int[] first = pixels();
+        int[] second = pixels();
+
+        assertEquals(ContentSignature.of(first, first.length), ContentSignature.of(second, second.length));
+    }
+
+    @Test
+    void single_changed_pixel_changes_signature() {
+        int[] pixels = pixels();
+        long before = ContentSignature.of(pixels, pixels.length);
+
+        for (int i = 0; i < pixels.length; i++) {
+            int[] changed = pixels.clone();
+            changed[i] ^= 1;
+            assertNotEquals(before, ContentSignature.of(changed, changed.length));
+        }
+    }
+
+    @Test
+    void ignores_pixels_after_length() {
+        int[] pixels = pixels();
+        int[] changed = pixels.clone();
+        changed[changed.length - 1] = 0;
+
+        assertEquals(ContentSignature.of(pixels, pixels.length - 1), ContentSignature.of(changed, changed.length - 1));
+    }
+
+    private static int[] pixels() {
+        int[] pixels = new int[64 * 4];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | i * 1021;
+        }
+        return pixels;
+    }
+}
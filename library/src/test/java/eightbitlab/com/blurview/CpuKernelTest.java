@@ -0,0 +1,110 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cases every {@link CpuBlur.Kernel} must pass. Subclasses create the kernel and add their specific cases.
+ */
+abstract class CpuKernelTest {
+    static final int WIDTH = 64;
+    static final int HEIGHT = 37;
+
+    final BandExecutor singleThread = new BandExecutor(1);
+    final BandExecutor multiThread = new BandExecutor(4);
+
+    abstract CpuBlur.Kernel createKernel(BandExecutor executor);
+
+    /**
+     * @return how many times a channel is rounded at 8 bit precision, which adds up with low alpha
+     */
+    int roundingsPerChannel() {
+        return 1;
+    }
+
+    @AfterEach
+    void tearDown() {
+        singleThread.shutdown();
+        multiThread.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {1, 4, 25, 100})
+    void solid_color_stays_the_same(float radius) {
+        int color = 0xff3c7a19;
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, color);
+
+        createKernel(multiThread).blur(pixels, WIDTH, HEIGHT, radius);
+
+        for (int pixel : pixels) {
+            assertEquals(color, pixel);
+        }
+    }
+
+    @Test
+    void zero_radius_does_nothing() {
+        int[] pixels = TestPixels.randomPixels(WIDTH, HEIGHT);
+        int[] expected = pixels.clone();
+
+        createKernel(singleThread).blur(pixels, WIDTH, HEIGHT, 0f);
+
+        assertArrayEquals(expected, pixels);
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {1, 3, 16, 50})
+    void result_does_not_depend_on_thread_count(float radius) {
+        int[] single = TestPixels.randomPixels(WIDTH, HEIGHT);
+        int[] multi = single.clone();
+
+        createKernel(singleThread).blur(single, WIDTH, HEIGHT, radius);
+        createKernel(multiThread).blur(multi, WIDTH, HEIGHT, radius);
+
+        assertArrayEquals(single, multi);
+    }
+
+    @Test
+    void opaque_edge_next_to_transparent_pixels_is_not_darkened() {
+        int color = 0xffe0c040;
+        int[] pixels = new int[WIDTH * HEIGHT];
+        // Opaque left half, transparent black right half, like an erased margin
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i % WIDTH < WIDTH / 2 ? color : 0;
+        }
+
+        createKernel(multiThread).blur(pixels, WIDTH, HEIGHT, 8f);
+
+        for (int pixel : pixels) {
+            int alpha = pixel >>> 24;
+            if (alpha != 0) {
+                for (int shift = 0; shift < 24; shift += 8) {
+                    // Straight alpha would pull the color towards black next to the edge.
+                    // The precision of the premultiplied color is lower at low alpha.
+                    int tolerance = roundingsPerChannel() * (255 / alpha + 1);
+                    assertEquals((color >> shift) & 0xff, (pixel >> shift) & 0xff, tolerance);
+                }
+            }
+        }
+    }
+
+    @Test
+    void blurs_the_same_after_releasing_buffers() {
+        int[] first = TestPixels.randomPixels(WIDTH, HEIGHT);
+        int[] second = first.clone();
+        CpuBlur.Kernel kernel = createKernel(multiThread);
+
+        kernel.blur(first, WIDTH, HEIGHT, 10f);
+        kernel.releaseBuffers();
+        kernel.blur(second, WIDTH, HEIGHT, 10f);
+
+        assertArrayEquals(first, second);
+    }
+}
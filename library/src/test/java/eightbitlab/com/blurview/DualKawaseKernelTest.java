@@ -0,0 +1,65 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DualKawaseKernelTest extends CpuKernelTest {
+    // Large enough for the whole pyramid of the largest radius
+    private static final int BLOCKS_WIDTH = 256;
+    private static final int BLOCKS_HEIGHT = 192;
+
+    @Override
+    CpuBlur.Kernel createKernel(BandExecutor executor) {
+        return new DualKawaseKernel(executor);
+    }
+
+    @Override
+    int roundingsPerChannel() {
+        // Once per pass
+        return 2;
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {1, 4, 8, 16, 25, 50, 100})
+    void is_close_to_gaussian_blur(float radius) {
+        int[] pixels = TestPixels.blocks(BLOCKS_WIDTH, BLOCKS_HEIGHT);
+        int[] expected = gaussianBlur(pixels, DualKawaseKernel.sigmaFor(radius));
+
+        new DualKawaseKernel(multiThread).blur(pixels, BLOCKS_WIDTH, BLOCKS_HEIGHT, radius);
+
+        long errorSum = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                errorSum += Math.abs(((pixels[i] >> shift) & 0xff) - ((expected[i] >> shift) & 0xff));
+            }
+        }
+        // Within 3% of the channel range on average, the shapes of the filters are a bit different
+        double meanError = (double) errorSum / (pixels.length * 3);
+        assertTrue(meanError < 0.03 * 255, "Mean error " + meanError);
+    }
+
+    @Test
+    void amount_of_passes_grows_logarithmically() {
+        assertEquals(1, DualKawaseKernel.passesFor(DualKawaseKernel.sigmaFor(1)));
+        assertEquals(4, DualKawaseKernel.passesFor(DualKawaseKernel.sigmaFor(25)));
+        assertEquals(6, DualKawaseKernel.passesFor(DualKawaseKernel.sigmaFor(100)));
+    }
+
+    @Test
+    void handles_images_smaller_than_the_pyramid() {
+        int[] pixels = new int[8 * 5];
+        pixels[20] = 0xffffffff;
+
+        new DualKawaseKernel(singleThread).blur(pixels, 8, 5, 100f);
+
+        assertTrue((pixels[20] & 0xff) < 0xff);
+    }
+
+    private static int[] gaussianBlur(int[] pixels, float sigma) {
+        return TestPixels.gaussianBlur(pixels, BLOCKS_WIDTH, BLOCKS_HEIGHT, (int) Math.ceil(3 * sigma), sigma);
+    }
+}
@@ -0,0 +1,61 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GaussianKernelTest extends CpuKernelTest {
+
+    @Override
+    CpuBlur.Kernel createKernel(BandExecutor executor) {
+        return new GaussianKernel(executor);
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {0.5f, 1, 7.3f, 25, GaussianKernel.MAX_RADIUS})
+    void weights_are_symmetric_and_sum_up_to_one(float radius) {
+        int[] weights = GaussianKernel.computeWeights(radius);
+
+        assertEquals(2 * (int) Math.ceil(radius) + 1, weights.length);
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i], weights[weights.length - 1 - i]);
+            sum += weights[i];
+        }
+        assertEquals(1 << 16, sum);
+    }
+
+    @Test
+    void caches_weights_per_half_pixel() {
+        GaussianKernel kernel = new GaussianKernel(singleThread);
+
+        int[] weights = kernel.weightsFor(10f);
+
+        assertSame(weights, kernel.weightsFor(10f));
+        assertSame(weights, kernel.weightsFor(10.1f));
+        assertTrue(weights != kernel.weightsFor(10.5f));
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {2, 9, 25})
+    void matches_reference_gaussian(float radius) {
+        int[] pixels = TestPixels.randomPixels(WIDTH, HEIGHT);
+        int[] expected = TestPixels.gaussianBlur(TestPixels.premultiplied(pixels), WIDTH, HEIGHT,
+                (int) Math.ceil(radius), 0.4 * radius + 0.6);
+
+        new GaussianKernel(multiThread).blur(pixels, WIDTH, HEIGHT, radius);
+
+        int[] actual = TestPixels.premultiplied(pixels);
+        for (int i = 0; i < actual.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int difference = Math.abs(((actual[i] >>> shift) & 0xff) - ((expected[i] >>> shift) & 0xff));
+                // Fixed point weights and the intermediate rounding between the passes
+                assertTrue(difference <= 2, "Difference " + difference + " at " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PremultipliedAlphaTest {
+
+    @Test
+    void opaque_and_transparent_pixels() {
+        assertEquals(0xff3c7a19, PremultipliedAlpha.premultiply(0xff3c7a19));
+        assertEquals(0xff3c7a19, PremultipliedAlpha.unpremultiply(0xff3c7a19));
+        assertEquals(0, PremultipliedAlpha.premultiply(0x00ffffff));
+    }
+
+    @Test
+    void premultiplies_color_by_alpha() {
+        assertEquals(0x80800000, PremultipliedAlpha.premultiply(0x80ff0000));
+        assertEquals(0x40201000, PremultipliedAlpha.premultiply(0x40804000));
+    }
+
+    @Test
+    void round_trip_keeps_color_within_alpha_precision() {
+        for (int a = 1; a < 256; a += 7) {
+            for (int c = 0; c < 256; c += 5) {
+                int pixel = a << 24 | c << 16 | c << 8 | c;
+                int restored = PremultipliedAlpha.unpremultiply(PremultipliedAlpha.premultiply(pixel));
+
+                assertEquals(a, restored >>> 24);
+                // One step of the premultiplied value is 255 / alpha steps of the color
+                assertTrue(Math.abs((restored & 0xff) - c) <= 255 / a / 2 + 1, "alpha " + a + ", color " + c);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static eightbitlab.com.blurview.UpdateScheduler.FRAME_NANOS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SelfInvalidationTest {
+    private static final int FRAMES = 600;
+
+    @Test
+    void skips_only_the_next_pre_draw() {
+        SelfInvalidation selfInvalidation = new SelfInvalidation();
+        selfInvalidation.mark();
+
+        assertTrue(selfInvalidation.consumePreDraw());
+        assertFalse(selfInvalidation.consumePreDraw());
+    }
+
+    @Test
+    void draw_clears_the_mark() {
+        SelfInvalidation selfInvalidation = new SelfInvalidation();
+        selfInvalidation.mark();
+
+        selfInvalidation.onDraw();
+
+        assertFalse(selfInvalidation.consumePreDraw());
+    }
+
+    @Test
+    void throttled_update_of_static_content_doesnt_loop() {
+        Frames frames = new Frames(UpdatePolicy.maxFps(10));
+
+        // The content changes once, right after an update, so the pre-draw is throttled
+        frames.invalidated = true;
+        frames.run(1);
+        frames.invalidated = true;
+        frames.run(FRAMES);
+
+        assertEquals(2, frames.updates);
+    }
+
+    @Test
+    void static_frame_runs_exactly_one_async_blur() {
+        Frames frames = new Frames(UpdatePolicy.everyFrame());
+        frames.blurFrames = 3;
+
+        frames.invalidated = true;
+        frames.run(FRAMES);
+
+        assertEquals(1, frames.updates);
+    }
+
+    @Test
+    void change_during_async_blur_runs_one_more_blur() {
+        Frames frames = new Frames(UpdatePolicy.everyFrame());
+        frames.blurFrames = 3;
+
+        frames.invalidated = true;
+        frames.run(1);
+        frames.invalidated = true;
+        frames.run(FRAMES);
+
+        assertEquals(2, frames.updates);
+    }
+
+    /**
+     * Simulates the frames of the controller: a frame is drawn only if something was invalidated,
+     * its pre-draw requests an update, and an update outside of a frame invalidates the BlurView.
+     * With async blur, an update finishes that many frames later, and invalidates the BlurView then.
+     */
+    private static class Frames {
+        final UpdateScheduler scheduler;
+        final SelfInvalidation selfInvalidation = new SelfInvalidation();
+        boolean invalidated;
+        long delayedUpdateAt = -1;
+        int blurFrames;
+        int blurFramesLeft;
+        boolean updateRequestedWhileBlurring;
+        long now;
+        int updates;
+
+        Frames(UpdatePolicy policy) {
+            scheduler = new UpdateScheduler(policy);
+        }
+
+        void run(int count) {
+            for (int i = 0; i < count; i++) {
+                now += FRAME_NANOS;
+                if (blurFramesLeft > 0 && --blurFramesLeft == 0) {
+                    selfInvalidation.mark();
+                    invalidated = true;
+                    if (updateRequestedWhileBlurring) {
+                        updateRequestedWhileBlurring = false;
+                        update();
+                    }
+                }
+                if (delayedUpdateAt >= 0 && now >= delayedUpdateAt) {
+                    delayedUpdateAt = -1;
+                    update();
+                    selfInvalidation.mark();
+                    invalidated = true;
+                }
+                if (invalidated) {
+                    invalidated = false;
+                    if (!selfInvalidation.consumePreDraw()) {
+                        requestUpdate();
+                    }
+                    selfInvalidation.onDraw();
+                }
+            }
+        }
+
+        void requestUpdate() {
+            if (blurFramesLeft > 0) {
+                updateRequestedWhileBlurring = true;
+                return;
+            }
+            long delay = scheduler.delayUntilNextUpdate(now);
+            if (delay <= 0) {
+                update();
+            } else if (delayedUpdateAt < 0) {
+                delayedUpdateAt = now + delay;
+            }
+        }
+
+        void update() {
+            scheduler.onUpdateStarted(now);
+            updates++;
+            blurFramesLeft = blurFrames;
+        }
+    }
+}
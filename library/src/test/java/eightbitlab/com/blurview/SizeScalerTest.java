@@ -12,6 +12,7 @@ import java.util.stream.Stream;
 import eightbitlab.com.blurview.SizeScaler.Size;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.of;
 
 class SizeScalerTest {
@@ -33,6 +34,50 @@ class SizeScalerTest {
         assertEquals(isZeroSized, scaler.isZeroSized(x, y));
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            // default radius keeps the default scale factor
+            "16,6,6",
+            "1,6,2",
+            "4,6,2",
+            "8,6,3",
+            "20,6,8",
+            "25,6,12",
+            "100,6,16",
+            // doesn't downscale more than the algorithm asks for small radii
+            "4,1,1",
+            "16,1,1",
+            "32,1,2"
+    })
+    void picks_scale_factor_from_radius(float radius, float baseScaleFactor, float expected) {
+        assertEquals(expected, SizeScaler.scaleFactorFor(radius, baseScaleFactor));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,6", "8,6", "16,6", "25,6", "100,6", "16,8"})
+    void keeps_on_screen_radius(float radius, float baseScaleFactor) {
+        float scaleFactor = SizeScaler.scaleFactorFor(radius, baseScaleFactor);
+        float scaledRadius = SizeScaler.scaleRadius(radius, baseScaleFactor, scaleFactor);
+        assertEquals(radius * baseScaleFactor, scaledRadius * scaleFactor, 0.001f);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1024,1024,8", "1000,256,3", "7,7,1", "1080,1149,16"})
+    void aligns_width_together_with_the_margin(int x, int y, int margin) {
+        Size result = scaler.scale(x, y, margin);
+        int downscaledWidth = (int) Math.ceil(x / scalingFactor);
+
+        assertEquals(0, (result.width + 2 * margin) % 64);
+        assertTrue(result.width >= downscaledWidth);
+        assertTrue(result.width < downscaledWidth + 64);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0,0", "0.5,1", "8,8", "8.01,9"})
+    void capture_margin_covers_the_radius(float scaledRadius, int expected) {
+        assertEquals(expected, SizeScaler.captureMargin(scaledRadius));
+    }
+
     @SuppressWarnings("unused")
     private static Stream<Arguments> scalingResults() {
         return Stream.of(
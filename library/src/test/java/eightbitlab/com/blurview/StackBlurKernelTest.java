@@ -0,0 +1,33 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StackBlurKernelTest extends CpuKernelTest {
+
+    @Override
+    CpuBlur.Kernel createKernel(BandExecutor executor) {
+        return new StackBlurKernel(executor);
+    }
+
+    @Test
+    void spreads_single_pixel_symmetrically() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        int centerX = WIDTH / 2;
+        int centerY = HEIGHT / 2;
+        pixels[centerY * WIDTH + centerX] = 0xffffffff;
+
+        new StackBlurKernel(multiThread).blur(pixels, WIDTH, HEIGHT, 4);
+
+        int center = pixels[centerY * WIDTH + centerX] & 0xff;
+        assertTrue(center > 0);
+        for (int d = 1; d <= 4; d++) {
+            assertEquals(pixels[centerY * WIDTH + centerX - d], pixels[centerY * WIDTH + centerX + d]);
+            assertEquals(pixels[(centerY - d) * WIDTH + centerX], pixels[(centerY + d) * WIDTH + centerX]);
+            assertTrue((pixels[centerY * WIDTH + centerX + d] & 0xff) <= center);
+        }
+        assertEquals(0, pixels[centerY * WIDTH + centerX + 6]);
+    }
+}
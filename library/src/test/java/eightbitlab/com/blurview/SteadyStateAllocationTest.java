@@ -0,0 +1,116 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the per-frame work of the JVM testable parts of the update path over many simulated frames,
+ * and fails if any of it allocates once the buffers are set up.
+ */
+class SteadyStateAllocationTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 37;
+    private static final int WARMUP_FRAMES = 20;
+    private static final int FRAMES = 500;
+    // Reading the counter may allocate a few bytes on some JVMs, a per-frame allocation is far above it
+    private static final long TOLERANCE_BYTES = 1024;
+
+    private final BandExecutor executor = new BandExecutor(1);
+    private final int[] pixels = new int[WIDTH * HEIGHT];
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void stack_blur_kernel() {
+        StackBlurKernel kernel = new StackBlurKernel(executor);
+        fillRandom();
+
+        assertAllocationFree(() -> kernel.blur(pixels, WIDTH, HEIGHT, 8));
+    }
+
+    @Test
+    void gaussian_kernel() {
+        GaussianKernel kernel = new GaussianKernel(executor);
+        fillRandom();
+
+        assertAllocationFree(() -> kernel.blur(pixels, WIDTH, HEIGHT, 7.5f));
+    }
+
+    @Test
+    void dual_kawase_kernel() {
+        DualKawaseKernel kernel = new DualKawaseKernel(executor);
+        fillRandom();
+
+        assertAllocationFree(() -> kernel.blur(pixels, WIDTH, HEIGHT, 16f));
+    }
+
+    @Test
+    void scheduling_and_metrics() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(4, 10));
+        BlurMetrics metrics = new BlurMetrics();
+        long[] now = {0};
+
+        assertAllocationFree(() -> {
+            now[0] += UpdateScheduler.FRAME_NANOS;
+            if (scheduler.delayUntilNextUpdate(now[0]) <= 0) {
+                scheduler.onUpdateStarted(now[0]);
+                long start = metrics.now();
+                metrics.onBlurUpdated(start, metrics.now());
+                scheduler.onUpdateFinished(3_000_000);
+            } else {
+                metrics.onUpdateSkipped(BlurMetricsListener.SKIP_COALESCED);
+            }
+        });
+    }
+
+    @Test
+    void content_change_detection_with_cached_result() {
+        BlurResultCache cache = new BlurResultCache(1024 * 1024);
+        fillRandom();
+        long signature = ContentSignature.of(pixels, pixels.length);
+        cache.put(signature, WIDTH, HEIGHT, 8f, "StackBlur/ARGB_8888", pixels.clone());
+
+        assertAllocationFree(() -> {
+            long current = ContentSignature.of(pixels, pixels.length);
+            cache.get(current, WIDTH, HEIGHT, 8f, "StackBlur/ARGB_8888");
+            // A frame that isn't cached
+            cache.get(current + 1, WIDTH, HEIGHT, 8f, "StackBlur/ARGB_8888");
+        });
+    }
+
+    private void fillRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+    }
+
+    private static void assertAllocationFree(Runnable frame) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counting is not supported");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "Allocation counting is not supported");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame.run();
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < FRAMES; i++) {
+            frame.run();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated <= TOLERANCE_BYTES, "Allocated " + allocated + " bytes over " + FRAMES + " frames");
+    }
+}
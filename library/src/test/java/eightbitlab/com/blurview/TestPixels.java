@@ -0,0 +1,100 @@
+package eightbitlab.com.blurview;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Pixel fixtures and the reference Gaussian shared by the kernel tests
+ */
+final class TestPixels {
+
+    private TestPixels() {
+    }
+
+    /**
+     * Random colors with random alpha
+     */
+    static int[] randomPixels(int width, int height) {
+        Random random = new Random(42);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    /**
+     * Random opaque 16x16 blocks, so the image has both flat areas and sharp edges
+     */
+    static int[] blocks(int width, int height) {
+        Random random = new Random(42);
+        int[] pixels = new int[width * height];
+        for (int blockY = 0; blockY < height; blockY += 16) {
+            for (int blockX = 0; blockX < width; blockX += 16) {
+                int color = 0xff000000 | random.nextInt(0xffffff);
+                for (int y = blockY; y < Math.min(height, blockY + 16); y++) {
+                    Arrays.fill(pixels, y * width + blockX, y * width + Math.min(width, blockX + 16), color);
+                }
+            }
+        }
+        return pixels;
+    }
+
+    static int[] premultiplied(int[] pixels) {
+        int[] result = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            result[i] = PremultipliedAlpha.premultiply(pixels[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Separable Gaussian in double precision, repeating the edge pixels.
+     * Blurs every channel as is, so translucent pixels must be premultiplied first.
+     *
+     * @param size  amount of pixels the kernel reaches on each side
+     * @param sigma standard deviation of the kernel
+     */
+    static int[] gaussianBlur(int[] pixels, int width, int height, int size, double sigma) {
+        double[] kernel = new double[2 * size + 1];
+        double total = 0;
+        for (int i = -size; i <= size; i++) {
+            kernel[i + size] = Math.exp(-i * i / (2 * sigma * sigma));
+            total += kernel[i + size];
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= total;
+        }
+
+        double[][] horizontal = new double[4][width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int channel = 0; channel < 4; channel++) {
+                    double value = 0;
+                    for (int i = -size; i <= size; i++) {
+                        int sampleX = Math.max(0, Math.min(width - 1, x + i));
+                        value += kernel[i + size] * ((pixels[y * width + sampleX] >>> (channel * 8)) & 0xff);
+                    }
+                    horizontal[channel][y * width + x] = value;
+                }
+            }
+        }
+
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int color = 0;
+                for (int channel = 0; channel < 4; channel++) {
+                    double value = 0;
+                    for (int i = -size; i <= size; i++) {
+                        int sampleY = Math.max(0, Math.min(height - 1, y + i));
+                        value += kernel[i + size] * horizontal[channel][sampleY * width + x];
+                    }
+                    color |= (int) Math.round(value) << (channel * 8);
+                }
+                result[y * width + x] = color;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package eightbitlab.com.blurview;
+
+import org.junit.jupiter.api.Test;
+
+import static eightbitlab.com.blurview.UpdateScheduler.FRAME_NANOS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateSchedulerTest {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void every_frame_never_delays() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.everyFrame());
+
+        scheduler.onUpdateStarted(1000);
+        scheduler.onUpdateFinished(50 * MILLIS);
+
+        assertEquals(0, scheduler.delayUntilNextUpdate(1000));
+    }
+
+    @Test
+    void first_update_is_never_delayed() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.maxFps(10));
+
+        assertEquals(0, scheduler.delayUntilNextUpdate(12345));
+    }
+
+    @Test
+    void max_fps_delays_until_interval_passes() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.maxFps(10));
+
+        scheduler.onUpdateStarted(0);
+
+        assertEquals(100 * MILLIS, scheduler.delayUntilNextUpdate(0));
+        assertEquals(40 * MILLIS, scheduler.delayUntilNextUpdate(60 * MILLIS));
+        assertEquals(0, scheduler.delayUntilNextUpdate(100 * MILLIS));
+    }
+
+    @Test
+    void reset_allows_update_right_away() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.maxFps(10));
+        scheduler.onUpdateStarted(0);
+
+        scheduler.reset();
+
+        assertEquals(0, scheduler.delayUntilNextUpdate(1));
+    }
+
+    @Test
+    void reset_keeps_the_adaptive_rate_for_the_following_updates() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(4, 10));
+        for (int i = 0; i < 10; i++) {
+            scheduler.onUpdateStarted(i * FRAME_NANOS);
+            scheduler.onUpdateFinished(12 * MILLIS);
+        }
+
+        // Like a resume, the first update happens right away, and the next ones are throttled as before
+        scheduler.reset();
+        assertEquals(0, scheduler.delayUntilNextUpdate(10 * FRAME_NANOS));
+        scheduler.onUpdateStarted(10 * FRAME_NANOS);
+        assertEquals(3 * FRAME_NANOS - FRAME_NANOS / 2, scheduler.delayUntilNextUpdate(10 * FRAME_NANOS));
+    }
+
+    @Test
+    void adaptive_keeps_every_frame_while_within_budget() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(4, 10));
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.onUpdateStarted(i * FRAME_NANOS);
+            scheduler.onUpdateFinished(3 * MILLIS);
+        }
+
+        assertEquals(0, scheduler.getIntervalNanos());
+    }
+
+    @Test
+    void adaptive_lowers_rate_when_over_budget_and_restores_it() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(4, 10));
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.onUpdateFinished(12 * MILLIS);
+        }
+        // 12ms of work within a 4ms budget means updating every 3rd frame
+        assertEquals(3 * FRAME_NANOS - FRAME_NANOS / 2, scheduler.getIntervalNanos());
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.onUpdateFinished(2 * MILLIS);
+        }
+        assertEquals(0, scheduler.getIntervalNanos());
+    }
+
+    @Test
+    void adaptive_rate_never_goes_below_min_fps() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(1, 10));
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.onUpdateFinished(500 * MILLIS);
+        }
+
+        assertEquals(100 * MILLIS, scheduler.getIntervalNanos());
+    }
+
+    @Test
+    void single_slow_frame_does_not_drop_rate_immediately() {
+        UpdateScheduler scheduler = new UpdateScheduler(UpdatePolicy.adaptive(4, 10));
+        for (int i = 0; i < 10; i++) {
+            scheduler.onUpdateFinished(2 * MILLIS);
+        }
+
+        scheduler.onUpdateFinished(20 * MILLIS);
+
+        assertTrue(scheduler.getIntervalNanos() < 3 * FRAME_NANOS);
+    }
+
+    @Test
+    void rejects_invalid_values() {
+        assertThrows(IllegalArgumentException.class, () -> UpdatePolicy.maxFps(0));
+        assertThrows(IllegalArgumentException.class, () -> UpdatePolicy.adaptive(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> UpdatePolicy.adaptive(4, -1));
+    }
+}